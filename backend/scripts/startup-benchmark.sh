@@ -0,0 +1,78 @@
+#!/usr/bin/env bash
+# Measures time from JVM launch to the first successful GET /api/test/ping for the default
+# build and the fast-start profile (AOT + lazy init + AppCDS).
+#
+# Usage: scripts/startup-benchmark.sh            (from the backend directory)
+#        RUNS=10 PORT=18080 scripts/startup-benchmark.sh
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS=${RUNS:-5}
+PORT=${PORT:-18080}
+WORK_DIR=${WORK_DIR:-${TMPDIR:-/tmp}/smartroute-startup}
+JAR_NAME=smartroute-buddy-0.0.1-SNAPSHOT
+
+# Placeholders so the default (eager) build can resolve every @Value without external services
+APP_ARGS=(
+    "--server.port=${PORT}"
+    "--ollama.base-url=${OLLAMA_BASE_URL:-http://localhost:11434}"
+    "--ollama.model=${OLLAMA_MODEL:-llama3}"
+    "--ollama.temperature=0.7"
+    "--ollama.max-tokens=256"
+    "--openroute.api-key=${OPENROUTE_API_KEY:-benchmark}"
+    "--openroute.base-url=https://api.openrouteservice.org/v2"
+    "--openroute.geocoding-url=https://api.openrouteservice.org/geocode/search"
+    "--tts.prewarm=false"
+    "--admission.enabled=false"
+)
+
+mkdir -p "${WORK_DIR}"
+
+echo "Building default jar..."
+mvn -B -q clean package -DskipTests
+cp "target/${JAR_NAME}.jar" "${WORK_DIR}/default.jar"
+
+echo "Building fast-start profile..."
+mvn -B -q clean package -DskipTests -Pfast-start
+
+now_ms() {
+    date +%s%3N
+}
+
+measure() {
+    local label=$1
+    shift
+    local total=0
+
+    for run in $(seq 1 "${RUNS}"); do
+        local start
+        start=$(now_ms)
+        "$@" "${APP_ARGS[@]}" > "${WORK_DIR}/${label}-${run}.log" 2>&1 &
+        local pid=$!
+
+        until curl -sf "http://localhost:${PORT}/api/test/ping" > /dev/null; do
+            if ! kill -0 "${pid}" 2> /dev/null; then
+                echo "${label}: application exited, see ${WORK_DIR}/${label}-${run}.log" >&2
+                exit 1
+            fi
+            sleep 0.01
+        done
+
+        local elapsed=$(( $(now_ms) - start ))
+        total=$(( total + elapsed ))
+        echo "${label} run ${run}: ${elapsed} ms"
+
+        kill "${pid}"
+        wait "${pid}" 2> /dev/null || true
+    done
+
+    echo "${label} average: $(( total / RUNS )) ms"
+}
+
+measure default java -jar "${WORK_DIR}/default.jar"
+measure fast-start java \
+    -XX:SharedArchiveFile=target/fast-start/application.jsa \
+    -Dspring.aot.enabled=true \
+    -Dspring.profiles.active=fast-start \
+    -jar "target/fast-start/${JAR_NAME}-fast-start.jar"
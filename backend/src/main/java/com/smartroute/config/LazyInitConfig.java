@@ -0,0 +1,33 @@
+package com.smartroute.config;
+
+import com.smartroute.service.LlmScheduler;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.ReflectionUtils;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The fast-start profile makes beans lazy. Beans that do work on their own (scheduled tasks,
+ * startup event listeners, the LLM dispatcher threads) are kept eager so that work still starts
+ * with the application rather than on the first request that happens to touch them.
+ */
+@Configuration
+public class LazyInitConfig {
+
+    @Bean
+    static LazyInitializationExcludeFilter backgroundBeans() {
+        return (beanName, beanDefinition, beanType) -> beanType != null
+                && (LlmScheduler.class.isAssignableFrom(beanType) || hasBackgroundMethod(beanType));
+    }
+
+    private static boolean hasBackgroundMethod(Class<?> beanType) {
+        AtomicBoolean found = new AtomicBoolean();
+        ReflectionUtils.doWithMethods(beanType, method -> found.set(true),
+                method -> method.isAnnotationPresent(Scheduled.class) || method.isAnnotationPresent(EventListener.class));
+        return found.get();
+    }
+}
@@ -0,0 +1,104 @@
+package com.smartroute.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.http.MediaType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Response encodings offered by the API. Spring MVC registers matching message converters for
+ * Smile and CBOR automatically; this enum is used where responses are pre-serialized.
+ */
+public enum WireFormat {
+
+    JSON(MediaType.APPLICATION_JSON, new ObjectMapper()),
+    SMILE(new MediaType("application", "x-jackson-smile"), new ObjectMapper(new SmileFactory())),
+    CBOR(MediaType.APPLICATION_CBOR, new ObjectMapper(new CBORFactory()));
+
+    private final MediaType mediaType;
+    private final ObjectMapper objectMapper;
+
+    WireFormat(MediaType mediaType, ObjectMapper objectMapper) {
+        this.mediaType = mediaType;
+        this.objectMapper = objectMapper;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    /**
+     * Picks the most preferred format from an Accept header, falling back to JSON.
+     */
+    public static WireFormat negotiate(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return JSON;
+        }
+
+        List<MediaType> accepted;
+        try {
+            accepted = MediaType.parseMediaTypes(accept);
+            MimeTypeUtils.sortBySpecificity(accepted);
+        } catch (IllegalArgumentException e) {
+            // Malformed or oversized Accept header
+            return JSON;
+        }
+
+        for (MediaType candidate : accepted) {
+            for (WireFormat format : values()) {
+                if (candidate.includes(format.mediaType)) {
+                    return format;
+                }
+            }
+        }
+        return JSON;
+    }
+
+    /**
+     * Whether an Accept-Encoding header allows gzip. Honours q-values, so {@code gzip;q=0}
+     * refuses it, and {@code *} covers gzip unless gzip is listed on its own.
+     */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double wildcard = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = qValue(parts);
+            } else if (coding.equals("*")) {
+                wildcard = qValue(parts);
+            }
+        }
+        if (gzip != null) {
+            return gzip > 0;
+        }
+        return wildcard != null && wildcard > 0;
+    }
+
+    private static double qValue(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.length() > 2 && parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    // An unreadable weight is no consent
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+}
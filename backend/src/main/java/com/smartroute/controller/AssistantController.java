@@ -3,16 +3,20 @@ package com.smartroute.controller;
 import com.smartroute.dto.CommandRequest;
 import com.smartroute.dto.CommandResponse;
 import com.smartroute.service.AssistantService;
+import com.smartroute.service.LlmScheduler;
 import com.smartroute.service.NavigationService;
+import com.smartroute.service.OllamaPool;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/api/assistant")
-@CrossOrigin(origins = "*")
+@CrossOrigin(originPatterns = "*")
 public class AssistantController {
 
     @Autowired
@@ -21,10 +25,21 @@ public class AssistantController {
     @Autowired
     private NavigationService navigationService;
 
+    @Autowired
+    private LlmScheduler llmScheduler;
+
+    @Autowired
+    private OllamaPool ollamaPool;
+
     @PostMapping("/process")
     public ResponseEntity<CommandResponse> processCommand(@RequestBody CommandRequest request) {
         try {
-            String response = assistantService.processCommand(request.getCommand(), request.getContext());
+            // The client sends its position next to the context; the weather answers need it there
+            Map<String, Object> context = request.getContext() != null ? new HashMap<>(request.getContext()) : new HashMap<>();
+            if (request.getLocation() != null) {
+                context.putIfAbsent("location", request.getLocation());
+            }
+            String response = assistantService.processCommand(request.getCommand(), context);
             return ResponseEntity.ok(new CommandResponse(response, "success"));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -34,10 +49,12 @@ public class AssistantController {
 
     @PostMapping("/health")
     public ResponseEntity<Map<String, Object>> health() {
-        return ResponseEntity.ok(Map.of(
-                "status", "healthy",
-                "service", "SmartRoute Buddy Assistant"
-        ));
+        Map<String, Object> health = new HashMap<>(ollamaPool.getHealth());
+        health.put("service", "SmartRoute Buddy Assistant");
+        if ("unavailable".equals(health.get("status"))) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(health);
+        }
+        return ResponseEntity.ok(health);
     }
 
     @GetMapping("/status")
@@ -52,7 +69,8 @@ public class AssistantController {
                         "bluetooth_support", true,
                         "weather_integration", true,
                         "telugu_support", true
-                )
+                ),
+                "llm_queue", llmScheduler.getStats()
         ));
     }
 } 
\ No newline at end of file
@@ -1,27 +1,53 @@
 package com.smartroute.controller;
 
+import com.smartroute.config.WireFormat;
+import com.smartroute.dto.MultiStopRequest;
 import com.smartroute.dto.NavigationRequest;
 import com.smartroute.dto.RouteResponse;
+import com.smartroute.service.CachedRoute;
 import com.smartroute.service.NavigationService;
+import com.smartroute.service.PlaceAutocompleteIndex;
+import com.smartroute.service.RoutePrefetcher;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/api/navigation")
-@CrossOrigin(origins = "*")
+@CrossOrigin(originPatterns = "*")
 public class NavigationController {
 
     @Autowired
     private NavigationService navigationService;
 
+    @Autowired
+    private PlaceAutocompleteIndex placeAutocompleteIndex;
+
+    @Autowired
+    private RoutePrefetcher routePrefetcher;
+
     @PostMapping("/route")
-    public ResponseEntity<RouteResponse> getRoute(@RequestBody NavigationRequest request) {
+    public ResponseEntity<?> getRoute(@RequestBody NavigationRequest request,
+                                      @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         try {
-            RouteResponse route = navigationService.getRoute(request.getOrigin(), request.getDestination());
-            return ResponseEntity.ok(route);
+            CachedRoute route = navigationService.getCachedRoute(request.getOrigin(), request.getDestination());
+
+            // Write the pre-serialized (and pre-compressed) bytes straight to the response
+            WireFormat format = WireFormat.negotiate(accept);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                    .contentType(format.getMediaType())
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+            byte[] gzipped = WireFormat.acceptsGzip(acceptEncoding) ? route.encodeGzipped(format) : null;
+            if (gzipped != null) {
+                return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(gzipped);
+            }
+            return response.body(route.encode(format));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(new RouteResponse(null, "Failed to get route: " + e.getMessage()));
@@ -31,7 +57,8 @@ public class NavigationController {
     @PostMapping("/reroute")
     public ResponseEntity<RouteResponse> reroute(@RequestBody NavigationRequest request) {
         try {
-            RouteResponse route = navigationService.reroute(request.getOrigin(), request.getDestination());
+            RouteResponse route = navigationService.reroute(
+                    request.getOrigin(), request.getDestination(), request.getRouteVersion());
             return ResponseEntity.ok(route);
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -39,6 +66,17 @@ public class NavigationController {
         }
     }
 
+    @PostMapping("/optimize")
+    public ResponseEntity<Map<String, Object>> optimize(@RequestBody MultiStopRequest request) {
+        try {
+            Map<String, Object> trip = navigationService.optimizeTrip(request);
+            return ResponseEntity.ok(trip);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Failed to optimize trip: " + e.getMessage()));
+        }
+    }
+
     @GetMapping("/geocode")
     public ResponseEntity<Map<String, Object>> geocode(@RequestParam String query) {
         try {
@@ -50,6 +88,36 @@ public class NavigationController {
         }
     }
 
+    @GetMapping("/autocomplete")
+    public ResponseEntity<Map<String, Object>> autocomplete(
+            @RequestParam String query,
+            @RequestParam(required = false) Double lat,
+            @RequestParam(required = false) Double lng,
+            @RequestParam(defaultValue = "5") int limit,
+            @RequestParam(defaultValue = "false") boolean submitted) {
+        try {
+            List<Map<String, Object>> places = placeAutocompleteIndex.search(query, lat, lng, limit);
+            if (!places.isEmpty()) {
+                return ResponseEntity.ok(Map.of(
+                        "places", places,
+                        "source", "local",
+                        "status", "OK"
+                ));
+            }
+
+            // Nothing in the local gazetteer; fall back to the geocoding API. Only submitted
+            // searches are recorded for prefetching, not every prefix typed on the way
+            Map<String, Object> geocoded = new HashMap<>(submitted
+                    ? navigationService.geocode(query)
+                    : navigationService.lookupGeocode(query));
+            geocoded.put("source", "geocode");
+            return ResponseEntity.ok(geocoded);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Failed to autocomplete: " + e.getMessage()));
+        }
+    }
+
     @GetMapping("/nearby")
     public ResponseEntity<Map<String, Object>> getNearbyPlaces(
             @RequestParam double lat,
@@ -77,6 +145,11 @@ public class NavigationController {
         ));
     }
 
+    @GetMapping("/prefetch/stats")
+    public ResponseEntity<Map<String, Object>> prefetchStats() {
+        return ResponseEntity.ok(routePrefetcher.getStats());
+    }
+
     @GetMapping("/health")
     public ResponseEntity<Map<String, Object>> health() {
         return ResponseEntity.ok(Map.of(
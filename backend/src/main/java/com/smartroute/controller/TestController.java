@@ -7,7 +7,7 @@ import java.util.Map;
 
 @RestController
 @RequestMapping("/api/test")
-@CrossOrigin(origins = "*")
+@CrossOrigin(originPatterns = "*")
 public class TestController {
 
     @GetMapping("/ping")
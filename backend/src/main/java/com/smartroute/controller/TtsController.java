@@ -0,0 +1,70 @@
+package com.smartroute.controller;
+
+import com.smartroute.service.TtsService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+@RestController
+@RequestMapping("/api/tts")
+@CrossOrigin(originPatterns = "*")
+public class TtsController {
+
+    @Autowired
+    private TtsService ttsService;
+
+    @GetMapping("/speak")
+    public void speak(@RequestParam String text,
+                      @RequestParam(defaultValue = "en-US") String language,
+                      HttpServletRequest request,
+                      HttpServletResponse response) throws IOException {
+        if (text.isBlank()) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Text must not be empty");
+            return;
+        }
+
+        // Cache entries are content-addressed, so the file name doubles as a strong ETag and a
+        // client that already holds it needs neither the cache nor the TTS server
+        String etag = "\"" + ttsService.cacheKey(text, language) + "\"";
+        if (etag.equals(request.getHeader("If-None-Match"))) {
+            response.setHeader("ETag", etag);
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        // Streamed from a channel opened here rather than through Tomcat's sendfile, which opens
+        // the file by name only after this method returns, when a concurrent miss may have
+        // evicted it
+        FileChannel channel;
+        try {
+            channel = ttsService.openAudio(text, language);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        } catch (IOException e) {
+            response.sendError(HttpServletResponse.SC_BAD_GATEWAY, "Failed to synthesize speech: " + e.getMessage());
+            return;
+        }
+
+        response.setHeader("ETag", etag);
+        response.setHeader("Cache-Control", "public, max-age=86400, immutable");
+
+        response.setContentType("audio/wav");
+        try (channel) {
+            long size = channel.size();
+            response.setContentLengthLong(size);
+
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, out);
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.smartroute.dto;
+
+import java.util.List;
+import java.util.Map;
+
+public class MultiStopRequest {
+    private Map<String, Object> origin;
+    private List<Map<String, Object>> stops;
+    private Map<String, Object> destination;
+    private boolean roundTrip;
+    private Long timeLimitMs;
+
+    public MultiStopRequest() {}
+
+    public Map<String, Object> getOrigin() {
+        return origin;
+    }
+
+    public void setOrigin(Map<String, Object> origin) {
+        this.origin = origin;
+    }
+
+    public List<Map<String, Object>> getStops() {
+        return stops;
+    }
+
+    public void setStops(List<Map<String, Object>> stops) {
+        this.stops = stops;
+    }
+
+    public Map<String, Object> getDestination() {
+        return destination;
+    }
+
+    public void setDestination(Map<String, Object> destination) {
+        this.destination = destination;
+    }
+
+    public boolean isRoundTrip() {
+        return roundTrip;
+    }
+
+    public void setRoundTrip(boolean roundTrip) {
+        this.roundTrip = roundTrip;
+    }
+
+    public Long getTimeLimitMs() {
+        return timeLimitMs;
+    }
+
+    public void setTimeLimitMs(Long timeLimitMs) {
+        this.timeLimitMs = timeLimitMs;
+    }
+}
@@ -6,6 +6,7 @@ public class NavigationRequest {
     private Map<String, Object> origin;
     private Map<String, Object> destination;
     private String travelMode;
+    private String routeVersion;
 
     public NavigationRequest() {}
 
@@ -38,4 +39,12 @@ public class NavigationRequest {
     public void setTravelMode(String travelMode) {
         this.travelMode = travelMode;
     }
+
+    public String getRouteVersion() {
+        return routeVersion;
+    }
+
+    public void setRouteVersion(String routeVersion) {
+        this.routeVersion = routeVersion;
+    }
 } 
\ No newline at end of file
@@ -7,9 +7,17 @@ public class RouteResponse {
     private Map<String, Object> route;
     private String error;
     private List<Map<String, Object>> steps;
+    private List<Map<String, Object>> geometry;
     private String duration;
     private String distance;
 
+    // Route versioning for delta updates on reroute
+    private String version;
+    private String baseVersion;
+    private boolean delta;
+    private Integer retainedStepsFrom;
+    private Integer retainedGeometryFrom;
+
     public RouteResponse() {}
 
     public RouteResponse(Map<String, Object> route, String error) {
@@ -41,6 +49,14 @@ public class RouteResponse {
         this.steps = steps;
     }
 
+    public List<Map<String, Object>> getGeometry() {
+        return geometry;
+    }
+
+    public void setGeometry(List<Map<String, Object>> geometry) {
+        this.geometry = geometry;
+    }
+
     public String getDuration() {
         return duration;
     }
@@ -56,4 +72,44 @@ public class RouteResponse {
     public void setDistance(String distance) {
         this.distance = distance;
     }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
+    public String getBaseVersion() {
+        return baseVersion;
+    }
+
+    public void setBaseVersion(String baseVersion) {
+        this.baseVersion = baseVersion;
+    }
+
+    public boolean isDelta() {
+        return delta;
+    }
+
+    public void setDelta(boolean delta) {
+        this.delta = delta;
+    }
+
+    public Integer getRetainedStepsFrom() {
+        return retainedStepsFrom;
+    }
+
+    public void setRetainedStepsFrom(Integer retainedStepsFrom) {
+        this.retainedStepsFrom = retainedStepsFrom;
+    }
+
+    public Integer getRetainedGeometryFrom() {
+        return retainedGeometryFrom;
+    }
+
+    public void setRetainedGeometryFrom(Integer retainedGeometryFrom) {
+        this.retainedGeometryFrom = retainedGeometryFrom;
+    }
 } 
\ No newline at end of file
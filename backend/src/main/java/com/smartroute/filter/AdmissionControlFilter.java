@@ -0,0 +1,216 @@
+package com.smartroute.filter;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartroute.service.AssistantService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Rejects requests with 429 once a client exhausts its budget. Clients are identified by their
+ * {@code X-API-Key} when it is one of {@code admission.api-keys}, and by IP otherwise. Commands
+ * that end up at Ollama draw from a much smaller budget than everything else.
+ *
+ * <p>To tell the two apart only the {@code command} field of a {@code /process} body is read,
+ * with a streaming parser over at most {@code admission.max-command-bytes}; a client with no
+ * budget left in either bucket is rejected before any of its body is read.
+ */
+@Component
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final String PROCESS_PATH = "/api/assistant/process";
+
+    // The command comes first in the assistant's requests; read more only when it does not
+    private static final int FIRST_READ_BYTES = 512;
+
+    @Value("${admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${admission.trust-forwarded-for:false}")
+    private boolean trustForwardedFor;
+
+    // Proxies we run in front of the app; each appends the address it received the request from
+    @Value("${admission.trusted-proxy-hops:1}")
+    private int trustedProxyHops;
+
+    @Value("${admission.max-command-bytes:4096}")
+    private int maxCommandBytes;
+
+    private final Set<String> apiKeys;
+
+    private final TokenBucketRegistry llmBuckets;
+    private final TokenBucketRegistry cheapBuckets;
+
+    private final Counter admitted;
+    private final Counter rejectedLlm;
+    private final Counter rejectedCheap;
+    private final Counter rejectedUnread;
+    private final Counter rejectedTooLarge;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public AdmissionControlFilter(
+            @Value("${admission.llm.permits-per-minute:20}") double llmPermitsPerMinute,
+            @Value("${admission.llm.burst:5}") int llmBurst,
+            @Value("${admission.cheap.permits-per-minute:300}") double cheapPermitsPerMinute,
+            @Value("${admission.cheap.burst:60}") int cheapBurst,
+            @Value("${admission.max-clients:100000}") int maxClients,
+            @Value("${admission.api-keys:}") String apiKeys,
+            MeterRegistry meterRegistry) {
+        this.apiKeys = Arrays.stream(apiKeys.split(","))
+                .map(String::trim)
+                .filter(key -> !key.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        this.llmBuckets = new TokenBucketRegistry(llmPermitsPerMinute, llmBurst, maxClients);
+        this.cheapBuckets = new TokenBucketRegistry(cheapPermitsPerMinute, cheapBurst, maxClients);
+
+        this.admitted = meterRegistry.counter("admission.requests", "outcome", "admitted");
+        this.rejectedLlm = meterRegistry.counter("admission.requests", "outcome", "rejected", "budget", "llm");
+        this.rejectedCheap = meterRegistry.counter("admission.requests", "outcome", "rejected", "budget", "cheap");
+        this.rejectedUnread = meterRegistry.counter("admission.requests", "outcome", "rejected", "budget", "all");
+        this.rejectedTooLarge = meterRegistry.counter("admission.requests", "outcome", "too-large");
+        Gauge.builder("admission.clients", cheapBuckets, TokenBucketRegistry::size).register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled
+                || "OPTIONS".equalsIgnoreCase(request.getMethod())
+                || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        HttpServletRequest forwarded = request;
+        boolean llmBacked = false;
+        String clientKey = clientKey(request);
+        long now = System.nanoTime();
+
+        if (PROCESS_PATH.equals(request.getRequestURI())) {
+            long unreadWait = Math.min(llmBuckets.peek(clientKey, now), cheapBuckets.peek(clientKey, now));
+            if (unreadWait > 0) {
+                rejectedUnread.increment();
+                reject(response, unreadWait);
+                return;
+            }
+
+            CachedBodyHttpServletRequest cached = new CachedBodyHttpServletRequest(request);
+            String command = null;
+            int limit = Math.min(FIRST_READ_BYTES, maxCommandBytes);
+            while (true) {
+                cached.fill(limit);
+                try {
+                    command = extractCommand(cached);
+                    break;
+                } catch (TruncatedCommandException e) {
+                    if (limit >= maxCommandBytes) {
+                        rejectedTooLarge.increment();
+                        writeError(response, HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE,
+                                "The command must be within the first " + maxCommandBytes + " bytes of the request.");
+                        return;
+                    }
+                    limit = maxCommandBytes;
+                }
+            }
+            llmBacked = AssistantService.requiresLlm(command);
+            forwarded = cached;
+        }
+
+        TokenBucketRegistry buckets = llmBacked ? llmBuckets : cheapBuckets;
+        long waitNanos = buckets.tryAcquire(clientKey, now);
+
+        if (waitNanos > 0) {
+            (llmBacked ? rejectedLlm : rejectedCheap).increment();
+            reject(response, waitNanos);
+            return;
+        }
+
+        admitted.increment();
+        filterChain.doFilter(forwarded, response);
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        // Unknown keys are ignored, otherwise rotating the header would mint fresh budgets
+        String apiKey = apiKeys.isEmpty() ? null : request.getHeader("X-API-Key");
+        if (apiKey != null && apiKeys.contains(apiKey)) {
+            return "key:" + apiKey;
+        }
+        if (trustForwardedFor) {
+            // Entries left of those our proxies appended are whatever the client chose to send
+            String forwardedFor = request.getHeader("X-Forwarded-For");
+            if (forwardedFor != null && trustedProxyHops > 0) {
+                String[] hops = forwardedFor.split(",");
+                if (hops.length >= trustedProxyHops && !hops[hops.length - trustedProxyHops].isBlank()) {
+                    return "ip:" + hops[hops.length - trustedProxyHops].trim();
+                }
+            }
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    /**
+     * Reads top-level fields up to {@code command} and stops there, skipping the values of any
+     * fields before it without building them.
+     */
+    private String extractCommand(CachedBodyHttpServletRequest body) throws TruncatedCommandException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(body.getHead(), 0, body.getHeadLength())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                if ("command".equals(parser.currentName())) {
+                    return parser.nextToken() == JsonToken.VALUE_STRING ? parser.getText() : null;
+                }
+                parser.nextToken();
+                parser.skipChildren();
+            }
+            return null;
+        } catch (IOException e) {
+            if (!body.isComplete()) {
+                throw new TruncatedCommandException();
+            }
+            // Malformed bodies are rejected by the controller; charge them to the cheap budget
+            return null;
+        }
+    }
+
+    private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+        writeError(response, 429, "Too many requests. Please retry in " + retryAfterSeconds + " seconds.");
+    }
+
+    private void writeError(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), Map.of(
+                "status", "error",
+                "error", message
+        ));
+    }
+
+    // The buffered head of the body ended before the command did
+    private static final class TruncatedCommandException extends Exception {
+        TruncatedCommandException() {
+            super(null, null, false, false);
+        }
+    }
+}
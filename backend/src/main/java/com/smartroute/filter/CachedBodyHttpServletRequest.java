@@ -0,0 +1,107 @@
+package com.smartroute.filter;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Request wrapper that buffers the start of the body, as much as a filter asks for with
+ * {@link #fill}, so the filter can inspect it. The controller reads the buffered head followed
+ * by the rest of the original stream, so a large body is never held in memory here.
+ */
+public class CachedBodyHttpServletRequest extends HttpServletRequestWrapper {
+
+    private final long contentLength;
+    private byte[] head = new byte[0];
+    private int headLength;
+    private boolean complete;
+
+    public CachedBodyHttpServletRequest(HttpServletRequest request) {
+        super(request);
+        this.contentLength = request.getContentLengthLong();
+        this.complete = contentLength == 0;
+    }
+
+    /**
+     * Buffers the body up to {@code limit} bytes in total, or up to its end if that comes first.
+     */
+    public void fill(int limit) throws IOException {
+        int capacity = contentLength >= 0 ? (int) Math.min(contentLength, limit) : limit;
+        if (complete || capacity <= headLength) {
+            return;
+        }
+        head = Arrays.copyOf(head, capacity);
+        int read = super.getInputStream().readNBytes(head, headLength, capacity - headLength);
+        headLength += read;
+        complete = contentLength >= 0 ? headLength >= contentLength : headLength < capacity;
+    }
+
+    public byte[] getHead() {
+        return head;
+    }
+
+    public int getHeadLength() {
+        return headLength;
+    }
+
+    /**
+     * Whether the buffered head is the whole body.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+        ServletInputStream rest = super.getInputStream();
+        return new ServletInputStream() {
+            private int position;
+
+            @Override
+            public boolean isFinished() {
+                return position >= headLength && rest.isFinished();
+            }
+
+            @Override
+            public boolean isReady() {
+                return position < headLength || rest.isReady();
+            }
+
+            @Override
+            public void setReadListener(ReadListener readListener) {
+                throw new UnsupportedOperationException("Async reads are not supported");
+            }
+
+            @Override
+            public int read() throws IOException {
+                return position < headLength ? head[position++] & 0xff : rest.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (position < headLength) {
+                    int count = Math.min(len, headLength - position);
+                    System.arraycopy(head, position, b, off, count);
+                    position += count;
+                    return count;
+                }
+                return rest.read(b, off, len);
+            }
+        };
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+        String encoding = getCharacterEncoding();
+        Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+        return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+    }
+}
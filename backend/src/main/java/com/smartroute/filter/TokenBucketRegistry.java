@@ -0,0 +1,122 @@
+package com.smartroute.filter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-client token buckets implemented with the generic cell rate algorithm: each bucket is a
+ * single "theoretical arrival time" updated with one CAS, so admission never takes a lock.
+ *
+ * <p>At most {@code maxClients} clients get their own bucket. Past that, new clients share one of
+ * a fixed set of overflow buckets (by key hash) until a sweep frees idle slots; sweeps run at
+ * most once per {@link #SWEEP_INTERVAL_NANOS}, so a flood of new keys costs neither memory nor a
+ * scan per request.
+ */
+public class TokenBucketRegistry {
+
+    static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int OVERFLOW_BUCKETS = 64;
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final int maxClients;
+
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicInteger clients = new AtomicInteger();
+    private final AtomicLong[] overflow = new AtomicLong[OVERFLOW_BUCKETS];
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private final AtomicLong nextSweepNanos;
+
+    public TokenBucketRegistry(double permitsPerMinute, int burst, int maxClients) {
+        this.emissionIntervalNanos = (long) (TimeUnit.MINUTES.toNanos(1) / permitsPerMinute);
+        this.burstToleranceNanos = emissionIntervalNanos * Math.max(0, burst - 1);
+        this.maxClients = maxClients;
+        this.nextSweepNanos = new AtomicLong(System.nanoTime());
+        for (int i = 0; i < OVERFLOW_BUCKETS; i++) {
+            overflow[i] = new AtomicLong(Long.MIN_VALUE);
+        }
+    }
+
+    /**
+     * Takes one permit for the client.
+     *
+     * @return 0 if the request is admitted, otherwise the nanoseconds until a permit is available
+     */
+    public long tryAcquire(String clientKey, long nowNanos) {
+        AtomicLong tat = buckets.get(clientKey);
+        if (tat == null) {
+            tat = register(clientKey, nowNanos);
+        }
+
+        while (true) {
+            long current = tat.get();
+            long arrival = Math.max(current, nowNanos);
+            long wait = arrival - burstToleranceNanos - nowNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (tat.compareAndSet(current, arrival + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Nanoseconds until the client could take a permit, without taking one or registering the
+     * client.
+     */
+    public long peek(String clientKey, long nowNanos) {
+        AtomicLong tat = buckets.get(clientKey);
+        if (tat == null) {
+            if (clients.get() < maxClients) {
+                return 0;
+            }
+            tat = overflow[Math.floorMod(clientKey.hashCode(), OVERFLOW_BUCKETS)];
+        }
+        return Math.max(0, Math.max(tat.get(), nowNanos) - burstToleranceNanos - nowNanos);
+    }
+
+    public int size() {
+        return clients.get();
+    }
+
+    private AtomicLong register(String clientKey, long nowNanos) {
+        if (clients.get() >= maxClients) {
+            evictIdle(nowNanos);
+        }
+        // Reserve a slot first so concurrent registrations cannot overshoot the cap
+        if (clients.incrementAndGet() > maxClients) {
+            clients.decrementAndGet();
+            return overflow[Math.floorMod(clientKey.hashCode(), OVERFLOW_BUCKETS)];
+        }
+        AtomicLong created = new AtomicLong(Long.MIN_VALUE);
+        AtomicLong existing = buckets.putIfAbsent(clientKey, created);
+        if (existing != null) {
+            clients.decrementAndGet();
+            return existing;
+        }
+        return created;
+    }
+
+    // A bucket whose arrival time has passed is full again and equivalent to a fresh one
+    private void evictIdle(long nowNanos) {
+        long due = nextSweepNanos.get();
+        if (nowNanos - due < 0 || !nextSweepNanos.compareAndSet(due, nowNanos + SWEEP_INTERVAL_NANOS)
+                || !sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            for (Map.Entry<String, AtomicLong> entry : buckets.entrySet()) {
+                if (entry.getValue().get() - nowNanos <= 0 && buckets.remove(entry.getKey(), entry.getValue())) {
+                    clients.decrementAndGet();
+                }
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+}
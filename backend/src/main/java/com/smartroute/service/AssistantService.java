@@ -3,19 +3,21 @@ package com.smartroute.service;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import okhttp3.*;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 @Service
 public class AssistantService {
 
-    @Value("${ollama.base-url}")
-    private String ollamaBaseUrl;
-
     @Value("${ollama.model}")
     private String model;
 
@@ -28,6 +30,18 @@ public class AssistantService {
     @Value("${openweather.api-key:}")
     private String openWeatherApiKey;
 
+    @Autowired
+    private LlmScheduler llmScheduler;
+
+    @Autowired
+    private OllamaPool ollamaPool;
+
+    @Autowired
+    private RouteWeatherService routeWeatherService;
+
+    @Autowired
+    private RouteVersionStore routeVersionStore;
+
     private final OkHttpClient client = new OkHttpClient.Builder()
             .connectTimeout(30, TimeUnit.SECONDS)
             .readTimeout(30, TimeUnit.SECONDS)
@@ -36,37 +50,129 @@ public class AssistantService {
 
     private final ObjectMapper objectMapper = new ObjectMapper();
 
-    public String processCommand(String command, Map<String, Object> context) throws IOException {
-        // Check for specific command patterns
-        String lowerCommand = command.toLowerCase();
+    // Simple English to Telugu translation mapping for the fixed navigation prompts
+    private static final Map<String, String> NAVIGATION_PHRASES = Map.of(
+            "take left", "ఎడమవైపు తీసుకో",
+            "take right", "కుడివైపు తీసుకో",
+            "go straight", "ముందుకు వెళ్లు",
+            "stop", "నిలిపి వేయి",
+            "turn around", "తిరిగి వెళ్లు",
+            "destination reached", "గమ్యం చేరుకున్నారు",
+            "wrong turn", "తప్పు మలుపు",
+            "recalculating route", "మార్గం తిరిగి లెక్కిస్తున్నాను"
+    );
+
+    // Intents answered locally without calling Ollama, in order of precedence
+    private enum LocalIntent { NAVIGATE, STOP, TIME, WEATHER, TELUGU }
+
+    // Used both to admit requests (requiresLlm) and to dispatch them, so the two always agree
+    private static final Map<LocalIntent, List<Keyword>> LOCAL_INTENT_KEYWORDS = new EnumMap<>(Map.of(
+            LocalIntent.NAVIGATE, keywords("take me to", "navigate to"),
+            LocalIntent.STOP, keywords("stop", "cancel"),
+            LocalIntent.TIME, keywords("time"),
+            LocalIntent.WEATHER, keywords("weather", "rain", "raining", "forecast"),
+            LocalIntent.TELUGU, keywords("ఎక్కడికి", "మార్గం")
+    ));
+
+    // Weather questions about the road ahead rather than the current position
+    private static final List<Keyword> ROUTE_WEATHER_KEYWORDS = keywords(
+            "ahead", "route", "on the way", "rain"
+    );
+
+    // Questions that jump the LLM queue while the driver is navigating
+    private static final List<Keyword> NAVIGATION_QUESTION_KEYWORDS = keywords(
+            "route", "turn", "exit", "lane", "traffic", "road", "destination", "arrive", "eta",
+            "how far", "how long", "reroute", "parking", "petrol", "fuel", "toll", "highway"
+    );
+
+    public static boolean requiresLlm(String command) {
+        return command != null && localIntent(command) == null;
+    }
 
-        // Navigation commands
-        if (lowerCommand.contains("take me to") || lowerCommand.contains("navigate to")) {
-            return handleNavigationCommand(command);
+    public String processCommand(String command, Map<String, Object> context) throws IOException {
+        LocalIntent intent = localIntent(command);
+        if (intent == null) {
+            // General questions - use Ollama
+            return processWithOllama(command, context);
         }
 
-        // Stop commands
-        if (lowerCommand.contains("stop") || lowerCommand.contains("cancel")) {
-            return "Stopped. How else can I help you?";
+        switch (intent) {
+            case NAVIGATE:
+                return handleNavigationCommand(command);
+            case STOP:
+                return "Stopped. How else can I help you?";
+            case TIME:
+                return "The current time is " + java.time.LocalTime.now().format(java.time.format.DateTimeFormatter.ofPattern("HH:mm"));
+            case WEATHER:
+                return handleWeatherCommand(command, context);
+            default:
+                return handleTeluguCommand(command);
         }
+    }
 
-        // Time commands
-        if (lowerCommand.contains("time") || lowerCommand.contains("what time")) {
-            return "The current time is " + java.time.LocalTime.now().format(java.time.format.DateTimeFormatter.ofPattern("HH:mm"));
+    private static LocalIntent localIntent(String command) {
+        String lowerCommand = command.toLowerCase(Locale.ROOT);
+        for (Map.Entry<LocalIntent, List<Keyword>> intent : LOCAL_INTENT_KEYWORDS.entrySet()) {
+            if (matchesAny(intent.getValue(), lowerCommand)) {
+                return intent.getKey();
+            }
         }
+        return null;
+    }
+
+    /**
+     * Keywords match whole words, so "eta" does not fire on "beta" nor "road" on "broad". English
+     * keywords also match their plural. Telugu attaches case endings to the word itself
+     * (మార్గంలో, "on the route"), so there only the start of the word is anchored.
+     *
+     * <p>Matching is a plain substring search plus boundary checks rather than a regex, since the
+     * admission filter runs it on every command.
+     */
+    private static List<Keyword> keywords(String... keywords) {
+        return Arrays.stream(keywords)
+                .map(keyword -> new Keyword(keyword, keyword.chars().allMatch(c -> c < 128)))
+                .toList();
+    }
 
-        // Weather commands
-        if (lowerCommand.contains("weather")) {
-            return handleWeatherCommand(command, context);
+    private static boolean matchesAny(List<Keyword> keywords, String lowerCommand) {
+        for (Keyword keyword : keywords) {
+            if (keyword.foundIn(lowerCommand)) {
+                return true;
+            }
         }
+        return false;
+    }
 
-        // Telugu commands
-        if (lowerCommand.contains("ఎక్కడికి") || lowerCommand.contains("మార్గం")) {
-            return handleTeluguCommand(command);
+    private record Keyword(String text, boolean anchorEnd) {
+
+        boolean foundIn(String lowerCommand) {
+            for (int start = lowerCommand.indexOf(text); start >= 0; start = lowerCommand.indexOf(text, start + 1)) {
+                if (isWordChar(lowerCommand, start - 1)) {
+                    continue;
+                }
+                int end = start + text.length();
+                if (!anchorEnd) {
+                    return true;
+                }
+                if (end < lowerCommand.length() && lowerCommand.charAt(end) == 's') {
+                    end++;
+                }
+                if (!isWordChar(lowerCommand, end)) {
+                    return true;
+                }
+            }
+            return false;
         }
 
-        // General questions - use Ollama
-        return processWithOllama(command, context);
+        private static boolean isWordChar(String text, int index) {
+            if (index < 0 || index >= text.length()) {
+                return false;
+            }
+            char c = text.charAt(index);
+            int type = Character.getType(c);
+            return Character.isLetterOrDigit(c) || type == Character.NON_SPACING_MARK
+                    || type == Character.COMBINING_SPACING_MARK || type == Character.ENCLOSING_MARK;
+        }
     }
 
     private String handleNavigationCommand(String command) {
@@ -75,15 +181,23 @@ public class AssistantService {
     }
 
     private String handleWeatherCommand(String command, Map<String, Object> context) {
+        List<Map<String, Object>> geometry = activeRouteGeometry(context);
+        if (geometry != null && matchesAny(ROUTE_WEATHER_KEYWORDS, command.toLowerCase(Locale.ROOT))) {
+            Object location = context.get("location");
+            return routeWeatherService.summarizeAlongRoute(geometry,
+                    location instanceof Map ? (Map<String, Object>) location : null);
+        }
+
         try {
             // Get location from context or use default
-            Map<String, Object> location = (Map<String, Object>) context.get("location");
+            Object location = context != null ? context.get("location") : null;
             double lat = 17.3850; // Default to Hyderabad
             double lng = 78.4867;
             
-            if (location != null && location.containsKey("lat") && location.containsKey("lng")) {
-                lat = (Double) location.get("lat");
-                lng = (Double) location.get("lng");
+            if (location instanceof Map<?, ?> point && point.get("lat") instanceof Number pointLat
+                    && point.get("lng") instanceof Number pointLng) {
+                lat = pointLat.doubleValue();
+                lng = pointLng.doubleValue();
             }
 
             // Call OpenWeatherMap API
@@ -94,6 +208,24 @@ public class AssistantService {
         }
     }
 
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> activeRouteGeometry(Map<String, Object> context) {
+        if (context == null || !(context.get("currentRoute") instanceof Map)) {
+            return null;
+        }
+        Map<String, Object> currentRoute = (Map<String, Object>) context.get("currentRoute");
+
+        // Prefer the full route we issued; the client copy may be a reroute delta
+        List<Map<String, Object>> issued = routeVersionStore.geometry((String) currentRoute.get("version"));
+        if (issued != null) {
+            return issued;
+        }
+        if (currentRoute.get("geometry") instanceof List && !Boolean.TRUE.equals(currentRoute.get("delta"))) {
+            return (List<Map<String, Object>>) currentRoute.get("geometry");
+        }
+        return null;
+    }
+
     private String getWeatherData(double lat, double lng) throws IOException {
         if (openWeatherApiKey == null || openWeatherApiKey.isEmpty()) {
             return "Weather service is not configured. Please set up OpenWeatherMap API key.";
@@ -146,6 +278,20 @@ public class AssistantService {
     }
 
     private String processWithOllama(String command, Map<String, Object> context) throws IOException {
+        LlmScheduler.Priority priority = isNavigationQuestion(command, context)
+                ? LlmScheduler.Priority.NAVIGATION
+                : LlmScheduler.Priority.GENERAL;
+        return llmScheduler.submit(priority, () -> generateWithOllama(command, context));
+    }
+
+    private boolean isNavigationQuestion(String command, Map<String, Object> context) {
+        if (context == null || !Boolean.TRUE.equals(context.get("navigationMode"))) {
+            return false;
+        }
+        return matchesAny(NAVIGATION_QUESTION_KEYWORDS, command.toLowerCase(Locale.ROOT));
+    }
+
+    private String generateWithOllama(String command, Map<String, Object> context) throws IOException {
         String prompt = buildPrompt(command, context);
 
         String requestBody = objectMapper.writeValueAsString(Map.of(
@@ -158,12 +304,15 @@ public class AssistantService {
                 )
         ));
 
+        OllamaPool.Instance instance = ollamaPool.acquire(model);
         Request request = new Request.Builder()
-                .url(ollamaBaseUrl + "/api/generate")
+                .url(instance.getBaseUrl() + "/api/generate")
                 .addHeader("Content-Type", "application/json")
                 .post(RequestBody.create(requestBody, MediaType.get("application/json")))
                 .build();
 
+        long start = System.nanoTime();
+        boolean success = false;
         try (Response response = client.newCall(request).execute()) {
             if (!response.isSuccessful()) {
                 throw new IOException("Ollama API request failed: " + response.code());
@@ -172,7 +321,10 @@ public class AssistantService {
             String responseBody = response.body().string();
             JsonNode jsonResponse = objectMapper.readTree(responseBody);
             
+            success = true;
             return jsonResponse.get("response").asText();
+        } finally {
+            ollamaPool.release(instance, System.nanoTime() - start, success);
         }
     }
 
@@ -193,20 +345,8 @@ public class AssistantService {
 
     // Telugu language support methods
     public String translateToTelugu(String englishText) {
-        // Simple English to Telugu translation mapping
-        Map<String, String> translations = Map.of(
-                "take left", "ఎడమవైపు తీసుకో",
-                "take right", "కుడివైపు తీసుకో",
-                "go straight", "ముందుకు వెళ్లు",
-                "stop", "నిలిపి వేయి",
-                "turn around", "తిరిగి వెళ్లు",
-                "destination reached", "గమ్యం చేరుకున్నారు",
-                "wrong turn", "తప్పు మలుపు",
-                "recalculating route", "మార్గం తిరిగి లెక్కిస్తున్నాను"
-        );
-
         String lowerText = englishText.toLowerCase();
-        for (Map.Entry<String, String> entry : translations.entrySet()) {
+        for (Map.Entry<String, String> entry : NAVIGATION_PHRASES.entrySet()) {
             if (lowerText.contains(entry.getKey())) {
                 return entry.getValue();
             }
@@ -214,6 +354,10 @@ public class AssistantService {
         return englishText;
     }
 
+    public Map<String, String> getNavigationPhrases() {
+        return NAVIGATION_PHRASES;
+    }
+
     public String translateFromTelugu(String teluguText) {
         // Simple Telugu to English translation mapping
         Map<String, String> translations = Map.of(
@@ -0,0 +1,72 @@
+package com.smartroute.service;
+
+import com.smartroute.config.WireFormat;
+import com.smartroute.dto.RouteResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A route held by {@link RouteCache}, together with its serialized forms. Each encoding is
+ * produced once and then written to responses as-is.
+ */
+public class CachedRoute {
+
+    private final RouteResponse response;
+    private final long expiresAt;
+    private final int compressMinBytes;
+
+    private final Map<WireFormat, byte[]> encoded = new ConcurrentHashMap<>();
+    private final Map<WireFormat, byte[]> gzipped = new ConcurrentHashMap<>();
+
+    public CachedRoute(RouteResponse response, long expiresAt, int compressMinBytes) {
+        this.response = response;
+        this.expiresAt = expiresAt;
+        this.compressMinBytes = compressMinBytes;
+    }
+
+    public RouteResponse getResponse() {
+        return response;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public boolean isExpired(long now) {
+        return now >= expiresAt;
+    }
+
+    public byte[] encode(WireFormat format) {
+        return encoded.computeIfAbsent(format, f -> {
+            try {
+                return f.getObjectMapper().writeValueAsBytes(response);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Returns the gzip-compressed encoding, or null when the payload is too small to be worth it.
+     */
+    public byte[] encodeGzipped(WireFormat format) {
+        byte[] plain = encode(format);
+        if (plain.length < compressMinBytes) {
+            return null;
+        }
+        return gzipped.computeIfAbsent(format, f -> {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(plain.length / 2);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                gzip.write(plain);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return out.toByteArray();
+        });
+    }
+}
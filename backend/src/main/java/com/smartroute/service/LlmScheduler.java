@@ -0,0 +1,237 @@
+package com.smartroute.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded dispatcher in front of Ollama. At most {@code ollama.max-concurrency} generations run
+ * at once per available pooled instance; everything else waits in a priority queue where
+ * navigation questions asked during active navigation are served before general chat. A job only
+ * leaves the queue once the pool has a free slot for it, so priority decides who gets the next
+ * slot. Requests that wait longer than {@code ollama.queue-timeout-ms} are dropped instead of
+ * being answered late.
+ */
+@Service
+public class LlmScheduler {
+
+    public enum Priority {
+        NAVIGATION,
+        GENERAL
+    }
+
+    @Value("${ollama.max-concurrency:2}")
+    private int maxConcurrency;
+
+    @Value("${ollama.queue-capacity:32}")
+    private int queueCapacity;
+
+    @Value("${ollama.queue-timeout-ms:15000}")
+    private long queueTimeoutMs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private OllamaPool ollamaPool;
+
+    private final PriorityBlockingQueue<Job> queue = new PriorityBlockingQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+
+    // Signalled whenever a running job finishes and frees its slot
+    private final Object slotFreed = new Object();
+
+    private Thread dispatcher;
+    private ExecutorService workers;
+    private Counter rejected;
+    private Counter expired;
+    private Timer queueWait;
+
+    @PostConstruct
+    public void start() {
+        for (Priority priority : Priority.values()) {
+            Gauge.builder("llm.queue.depth", queue, q -> q.stream().filter(job -> job.priority == priority).count())
+                    .tag("priority", priority.name().toLowerCase())
+                    .register(meterRegistry);
+        }
+        Gauge.builder("llm.active", active, AtomicInteger::get).register(meterRegistry);
+        rejected = meterRegistry.counter("llm.rejected");
+        expired = meterRegistry.counter("llm.expired");
+        queueWait = meterRegistry.timer("llm.queue.wait");
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(maxConcurrency * ollamaPool.size(), runnable -> {
+            Thread thread = new Thread(runnable, "llm-worker-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        dispatcher = new Thread(this::dispatchLoop, "llm-dispatch");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        dispatcher.interrupt();
+        workers.shutdownNow();
+    }
+
+    public String submit(Priority priority, Callable<String> task) throws IOException {
+        if (queued.incrementAndGet() > queueCapacity) {
+            queued.decrementAndGet();
+            rejected.increment();
+            throw new IOException("The assistant is busy right now. Please try again in a moment.");
+        }
+
+        Job job = new Job(priority, sequence.incrementAndGet(), task);
+        queue.add(job);
+
+        try {
+            return job.result.get(queueTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Still waiting for a slot: withdraw it so the worker never runs a stale request
+            if (job.claimed.compareAndSet(false, true)) {
+                if (queue.remove(job)) {
+                    queued.decrementAndGet();
+                }
+                expired.increment();
+                throw new IOException("The assistant is busy right now. Please try again in a moment.");
+            }
+            // Already running; the Ollama client timeout bounds the rest of the wait
+            return await(job);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the language model", e);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        return Map.of(
+                "queued", queued.get(),
+                "active", active.get(),
+                "maxConcurrency", ollamaPool.capacity(),
+                "queueCapacity", queueCapacity,
+                "rejected", (long) rejected.count(),
+                "expired", (long) expired.count()
+        );
+    }
+
+    private void dispatchLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            Job job;
+            try {
+                awaitFreeSlot();
+                job = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            queued.decrementAndGet();
+            if (!job.claimed.compareAndSet(false, true)) {
+                continue;
+            }
+
+            long waitedNanos = System.nanoTime() - job.enqueuedAt;
+            queueWait.record(waitedNanos, TimeUnit.NANOSECONDS);
+            if (waitedNanos > TimeUnit.MILLISECONDS.toNanos(queueTimeoutMs)) {
+                expired.increment();
+                job.result.completeExceptionally(
+                        new IOException("The assistant is busy right now. Please try again in a moment."));
+                continue;
+            }
+
+            active.incrementAndGet();
+            workers.execute(() -> run(job));
+        }
+    }
+
+    private void awaitFreeSlot() throws InterruptedException {
+        synchronized (slotFreed) {
+            while (active.get() >= dispatchLimit()) {
+                // Health probes can bring instances back without a job finishing, so re-check
+                slotFreed.wait(500);
+            }
+        }
+    }
+
+    // With no instance up, let requests through so they fail fast instead of waiting out the queue
+    private int dispatchLimit() {
+        int capacity = ollamaPool.capacity();
+        return capacity > 0 ? capacity : maxConcurrency;
+    }
+
+    private void run(Job job) {
+        try {
+            job.result.complete(job.task.call());
+        } catch (Exception e) {
+            job.result.completeExceptionally(e);
+        } finally {
+            active.decrementAndGet();
+            synchronized (slotFreed) {
+                slotFreed.notifyAll();
+            }
+        }
+    }
+
+    private String await(Job job) throws IOException {
+        try {
+            return job.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the language model", e);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private IOException unwrap(ExecutionException e) {
+        if (e.getCause() instanceof IOException) {
+            return (IOException) e.getCause();
+        }
+        return new IOException("Language model request failed: " + e.getCause().getMessage(), e.getCause());
+    }
+
+    private static final class Job implements Comparable<Job> {
+        private final Priority priority;
+        private final long sequence;
+        private final long enqueuedAt = System.nanoTime();
+        private final Callable<String> task;
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        private Job(Priority priority, long sequence, Callable<String> task) {
+            this.priority = priority;
+            this.sequence = sequence;
+            this.task = task;
+        }
+
+        @Override
+        public int compareTo(Job other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -2,8 +2,10 @@ package com.smartroute.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartroute.dto.MultiStopRequest;
 import com.smartroute.dto.RouteResponse;
 import okhttp3.*;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -11,7 +13,9 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 @Service
@@ -26,6 +30,37 @@ public class NavigationService {
     @Value("${openroute.geocoding-url}")
     private String geocodingUrl;
 
+    @Autowired
+    private RouteCache routeCache;
+
+    @Autowired
+    private RouteVersionStore routeVersionStore;
+
+    @Autowired
+    private TripOptimizer tripOptimizer;
+
+    @Autowired
+    private TripHistory tripHistory;
+
+    @Value("${geocode-cache.ttl-seconds:86400}")
+    private long geocodeTtlSeconds;
+
+    @Value("${geocode-cache.max-entries:1000}")
+    private int geocodeMaxEntries;
+
+    @Value("${openroute.max-waypoints:50}")
+    private int maxWaypoints;
+
+    @Value("${trip-optimizer.max-stops:50}")
+    private int maxStops;
+
+    @Value("${trip-optimizer.time-limit-ms:2000}")
+    private long maxTimeLimitMs;
+
+    // Used for straight-line duration estimates when the matrix API is unavailable
+    @Value("${trip-optimizer.fallback-speed-kmh:30}")
+    private double fallbackSpeedKmh;
+
     private final OkHttpClient client = new OkHttpClient.Builder()
             .connectTimeout(30, TimeUnit.SECONDS)
             .readTimeout(30, TimeUnit.SECONDS)
@@ -34,7 +69,48 @@ public class NavigationService {
 
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    private final Map<String, CachedGeocode> geocodeCache = new ConcurrentHashMap<>();
+
     public RouteResponse getRoute(Map<String, Object> origin, Map<String, Object> destination) throws IOException {
+        return getCachedRoute(origin, destination).getResponse();
+    }
+
+    public CachedRoute getCachedRoute(Map<String, Object> origin, Map<String, Object> destination) throws IOException {
+        String key = routeCache.key(origin, destination);
+        if (key != null) {
+            tripHistory.recordTrip(key, origin, destination);
+            CachedRoute cached = routeCache.get(key);
+            if (cached != null) {
+                tripHistory.recordRouteHit(key);
+                return cached;
+            }
+        }
+
+        RouteResponse route = fetchRoute(origin, destination);
+        if (route.getError() == null) {
+            routeVersionStore.register(route);
+        }
+        if (key == null || route.getError() != null) {
+            return routeCache.wrap(route);
+        }
+        return routeCache.put(key, route);
+    }
+
+    /**
+     * Fetches a route into the cache ahead of demand. Returns null if no route was found.
+     */
+    public CachedRoute warmRoute(Map<String, Object> origin, Map<String, Object> destination, long ttlSeconds)
+            throws IOException {
+        String key = routeCache.key(origin, destination);
+        RouteResponse route = fetchRoute(origin, destination);
+        if (key == null || route.getError() != null) {
+            return null;
+        }
+        routeVersionStore.register(route);
+        return routeCache.put(key, route, ttlSeconds);
+    }
+
+    private RouteResponse fetchRoute(Map<String, Object> origin, Map<String, Object> destination) throws IOException {
         String originStr = formatLocation(origin);
         String destinationStr = formatLocation(destination);
 
@@ -71,6 +147,20 @@ public class NavigationService {
         }
     }
 
+    /**
+     * Reroutes and, when the client's current route version is known, returns only the changed
+     * prefix of steps and geometry.
+     */
+    public RouteResponse reroute(Map<String, Object> origin, Map<String, Object> destination, String routeVersion)
+            throws IOException {
+        RouteResponse route = reroute(origin, destination);
+        if (route.getRoute() == null) {
+            return route;
+        }
+        routeVersionStore.register(route);
+        return routeVersionStore.diff(route, routeVersion);
+    }
+
     public RouteResponse reroute(Map<String, Object> origin, Map<String, Object> destination) throws IOException {
         String originStr = formatLocation(origin);
         String destinationStr = formatLocation(destination);
@@ -111,7 +201,234 @@ public class NavigationService {
         }
     }
 
+    /**
+     * Orders the stops of a multi-stop trip by driving time and returns the ordered stops with a
+     * single route through all of them.
+     */
+    public Map<String, Object> optimizeTrip(MultiStopRequest request) throws IOException {
+        List<Map<String, Object>> stops = request.getStops() == null ? List.of() : request.getStops();
+        if (request.getOrigin() == null || stops.isEmpty()) {
+            throw new IllegalArgumentException("Origin and at least one stop are required");
+        }
+        if (stops.size() > maxStops) {
+            throw new IllegalArgumentException("At most " + maxStops + " stops are supported");
+        }
+        // Clients may ask for a faster answer, never for more solver time than configured
+        Long requestedTimeLimitMs = request.getTimeLimitMs();
+        if (requestedTimeLimitMs != null && requestedTimeLimitMs <= 0) {
+            throw new IllegalArgumentException("timeLimitMs must be positive");
+        }
+        long timeLimitMs = requestedTimeLimitMs != null ? Math.min(requestedTimeLimitMs, maxTimeLimitMs) : maxTimeLimitMs;
+
+        boolean fixedEnd = request.getDestination() != null && !request.isRoundTrip();
+        List<Map<String, Object>> locations = new ArrayList<>();
+        locations.add(request.getOrigin());
+        locations.addAll(stops);
+        if (fixedEnd) {
+            locations.add(request.getDestination());
+        }
+        List<double[]> points = new ArrayList<>();
+        for (Map<String, Object> location : locations) {
+            points.add(toLatLng(location));
+        }
+
+        String matrixSource = "openroute";
+        double[][] durations;
+        try {
+            durations = fetchDurationMatrix(points);
+        } catch (IOException e) {
+            matrixSource = "estimate";
+            durations = estimateDurationMatrix(points);
+        }
+
+        TripOptimizer.Result solution = tripOptimizer.solve(durations, fixedEnd, request.isRoundTrip(), timeLimitMs);
+
+        List<Map<String, Object>> orderedStops = new ArrayList<>();
+        List<Integer> stopOrder = new ArrayList<>();
+        List<double[]> waypoints = new ArrayList<>();
+        for (int node : solution.order()) {
+            waypoints.add(points.get(node));
+            if (node >= 1 && node <= stops.size()) {
+                stopOrder.add(node - 1);
+                orderedStops.add(stops.get(node - 1));
+            }
+        }
+        if (request.isRoundTrip()) {
+            waypoints.add(points.get(0));
+        }
+
+        RouteResponse route = fetchRouteThrough(waypoints);
+        if (route.getError() == null) {
+            routeVersionStore.register(route);
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("order", stopOrder);
+        result.put("stops", orderedStops);
+        result.put("route", route);
+        result.put("estimatedDuration", formatDuration(solution.cost()));
+        result.put("matrixSource", matrixSource);
+        result.put("solver", Map.of(
+                "solveMs", solution.solveMs(),
+                "starts", solution.starts(),
+                "nearestNeighbourDuration", formatDuration(solution.nearestNeighbourCost())
+        ));
+        result.put("status", "OK");
+        return result;
+    }
+
+    private double[][] fetchDurationMatrix(List<double[]> points) throws IOException {
+        List<List<Double>> locations = new ArrayList<>();
+        for (double[] point : points) {
+            locations.add(List.of(point[1], point[0]));
+        }
+        String requestBody = objectMapper.writeValueAsString(Map.of(
+                "locations", locations,
+                "metrics", List.of("duration")
+        ));
+
+        Request request = new Request.Builder()
+                .url(baseUrl + "/matrix/driving-car")
+                .addHeader("Authorization", openRouteApiKey)
+                .addHeader("Content-Type", "application/json")
+                .post(RequestBody.create(requestBody, MediaType.get("application/json")))
+                .build();
+
+        try (Response response = client.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                throw new IOException("OpenRouteService matrix request failed: " + response.code());
+            }
+
+            JsonNode rows = objectMapper.readTree(response.body().string()).get("durations");
+            if (rows == null || rows.size() != points.size()) {
+                throw new IOException("OpenRouteService matrix response is incomplete");
+            }
+
+            double[][] durations = new double[points.size()][points.size()];
+            for (int i = 0; i < points.size(); i++) {
+                for (int j = 0; j < points.size(); j++) {
+                    JsonNode cell = rows.get(i).get(j);
+                    // Unroutable pairs come back as null; make them a last resort
+                    durations[i][j] = cell == null || cell.isNull() ? 1e7 : cell.asDouble();
+                }
+            }
+            return durations;
+        }
+    }
+
+    private double[][] estimateDurationMatrix(List<double[]> points) {
+        double[][] durations = new double[points.size()][points.size()];
+        for (int i = 0; i < points.size(); i++) {
+            for (int j = 0; j < points.size(); j++) {
+                double km = GeoUtils.haversineKm(points.get(i)[0], points.get(i)[1], points.get(j)[0], points.get(j)[1]);
+                durations[i][j] = km / fallbackSpeedKmh * 3600;
+            }
+        }
+        return durations;
+    }
+
+    /**
+     * Route through the given waypoints in order. Longer lists than the directions API accepts
+     * are requested in consecutive legs that share their end points.
+     */
+    private RouteResponse fetchRouteThrough(List<double[]> waypoints) throws IOException {
+        List<Map<String, Object>> geometry = new ArrayList<>();
+        List<Map<String, Object>> steps = new ArrayList<>();
+        double duration = 0;
+        double distance = 0;
+
+        for (int from = 0; from < waypoints.size() - 1; from += maxWaypoints - 1) {
+            List<List<Double>> coordinates = new ArrayList<>();
+            for (double[] point : waypoints.subList(from, Math.min(from + maxWaypoints, waypoints.size()))) {
+                coordinates.add(List.of(point[1], point[0]));
+            }
+            String requestBody = objectMapper.writeValueAsString(Map.of(
+                    "coordinates", coordinates,
+                    "profile", "driving-car",
+                    "format", "geojson"
+            ));
+
+            Request request = new Request.Builder()
+                    .url(baseUrl + "/directions/driving-car/geojson")
+                    .addHeader("Authorization", openRouteApiKey)
+                    .addHeader("Content-Type", "application/json")
+                    .post(RequestBody.create(requestBody, MediaType.get("application/json")))
+                    .build();
+
+            try (Response response = client.newCall(request).execute()) {
+                if (!response.isSuccessful()) {
+                    throw new IOException("OpenRouteService API request failed: " + response.code());
+                }
+
+                JsonNode jsonResponse = objectMapper.readTree(response.body().string());
+                if (!jsonResponse.has("features") || jsonResponse.get("features").size() == 0) {
+                    return new RouteResponse(null, "Failed to get route: No route found");
+                }
+
+                RouteResponse leg = parseOpenRouteResponse(jsonResponse);
+                List<Map<String, Object>> legGeometry = leg.getGeometry();
+                geometry.addAll(geometry.isEmpty() ? legGeometry : legGeometry.subList(Math.min(1, legGeometry.size()), legGeometry.size()));
+                steps.addAll(leg.getSteps());
+
+                JsonNode summary = jsonResponse.get("features").get(0).get("properties").get("summary");
+                if (summary != null) {
+                    duration += summary.path("duration").asDouble();
+                    distance += summary.path("distance").asDouble();
+                }
+            }
+        }
+
+        RouteResponse routeResponse = new RouteResponse();
+        routeResponse.setDuration(formatDuration(duration));
+        routeResponse.setDistance(formatDistance(distance));
+        routeResponse.setGeometry(geometry);
+        routeResponse.setSteps(steps);
+
+        Map<String, Object> routeData = new HashMap<>();
+        routeData.put("summary", "Multi-stop route via OpenRouteService");
+        routeData.put("waypoints", waypoints.size());
+        routeResponse.setRoute(routeData);
+        return routeResponse;
+    }
+
+    private double[] toLatLng(Map<String, Object> location) {
+        if (location == null || !(location.get("lat") instanceof Number) || !(location.get("lng") instanceof Number)) {
+            throw new IllegalArgumentException("Every stop needs numeric lat and lng");
+        }
+        return new double[]{((Number) location.get("lat")).doubleValue(), ((Number) location.get("lng")).doubleValue()};
+    }
+
+    /**
+     * Geocodes a search the user submitted and counts it towards the searches worth prefetching.
+     */
     public Map<String, Object> geocode(String query) throws IOException {
+        tripHistory.recordSearch(query.trim().toLowerCase(Locale.ROOT));
+        return lookupGeocode(query);
+    }
+
+    /**
+     * Geocodes without recording the search, for type-ahead prefixes.
+     */
+    public Map<String, Object> lookupGeocode(String query) throws IOException {
+        String key = query.trim().toLowerCase(Locale.ROOT);
+        CachedGeocode cached = geocodeCache.get(key);
+        if (cached != null && cached.expiresAt > System.currentTimeMillis()) {
+            tripHistory.recordGeocodeHit(key);
+            return cached.result;
+        }
+        return fetchGeocode(key);
+    }
+
+    public void warmGeocode(String query) throws IOException {
+        fetchGeocode(query);
+    }
+
+    public boolean isGeocodeCached(String query, long until) {
+        CachedGeocode cached = geocodeCache.get(query);
+        return cached != null && cached.expiresAt > until;
+    }
+
+    private Map<String, Object> fetchGeocode(String query) throws IOException {
         String url = String.format("%s?api_key=%s&text=%s&size=5", 
                 geocodingUrl, openRouteApiKey, query);
 
@@ -148,6 +465,14 @@ public class NavigationService {
 
             result.put("places", places);
             result.put("status", "OK");
+
+            if (geocodeCache.size() >= geocodeMaxEntries) {
+                long now = System.currentTimeMillis();
+                geocodeCache.values().removeIf(entry -> entry.expiresAt <= now);
+            }
+            if (geocodeCache.size() < geocodeMaxEntries) {
+                geocodeCache.put(query, new CachedGeocode(result, System.currentTimeMillis() + geocodeTtlSeconds * 1000));
+            }
             return result;
         }
     }
@@ -155,7 +480,8 @@ public class NavigationService {
     public Map<String, Object> getNearbyPlaces(double lat, double lng, String type, int radius) throws IOException {
         // Use OpenRouteService geocoding for nearby places
         String query = String.format("%s near %f,%f", type, lat, lng);
-        return geocode(query);
+        // Coordinates make every query unique, so it is no search pattern worth prefetching
+        return lookupGeocode(query);
     }
 
     private String formatLocation(Map<String, Object> location) {
@@ -197,7 +523,7 @@ public class NavigationService {
                 coordinates.add(point);
             }
         }
-        routeResponse.setSteps(coordinates);
+        routeResponse.setGeometry(coordinates);
 
         // Extract route steps
         List<Map<String, Object>> steps = new ArrayList<>();
@@ -243,4 +569,7 @@ public class NavigationService {
             return String.format("%.0f m", meters);
         }
     }
-} 
\ No newline at end of file
+
+    private record CachedGeocode(Map<String, Object> result, long expiresAt) {
+    }
+}
@@ -0,0 +1,309 @@
+package com.smartroute.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of Ollama endpoints configured as a comma-separated {@code ollama.base-url}. Requests go
+ * to the healthy instance with the lowest (outstanding requests + 1) x latency EWMA, scaled up for
+ * instances that do not have the model loaded yet. No instance takes more than
+ * {@code ollama.max-concurrency} requests at once. Instances much slower than the rest of the pool
+ * are ejected for a cool-down period.
+ */
+@Service
+public class OllamaPool {
+
+    private static final double EWMA_ALPHA = 0.3;
+    private static final int MAX_CONSECUTIVE_FAILURES = 3;
+
+    @Value("${ollama.max-concurrency:2}")
+    private int maxConcurrency;
+
+    @Value("${ollama.acquire-timeout-ms:10000}")
+    private long acquireTimeoutMs;
+
+    // Expected-latency multipliers for an instance that has only pulled the model, or lacks it
+    @Value("${ollama.affinity.cold-penalty:2.0}")
+    private double coldPenalty;
+
+    @Value("${ollama.affinity.missing-penalty:20.0}")
+    private double missingPenalty;
+
+    @Value("${ollama.eject.latency-factor:3.0}")
+    private double ejectLatencyFactor;
+
+    @Value("${ollama.eject.cooldown-ms:30000}")
+    private long ejectCooldownMs;
+
+    private final List<Instance> instances;
+
+    private final OkHttpClient probeClient;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public OllamaPool(@Value("${ollama.base-url}") String baseUrls,
+                      @Value("${ollama.health.timeout-ms:2000}") long probeTimeoutMs) {
+        List<Instance> configured = new ArrayList<>();
+        for (String url : baseUrls.split(",")) {
+            if (!url.isBlank()) {
+                configured.add(new Instance(url.trim().replaceAll("/+$", "")));
+            }
+        }
+        if (configured.isEmpty()) {
+            throw new IllegalArgumentException("ollama.base-url must list at least one endpoint");
+        }
+        this.instances = List.copyOf(configured);
+        this.probeClient = new OkHttpClient.Builder()
+                .callTimeout(probeTimeoutMs, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    public int size() {
+        return instances.size();
+    }
+
+    /**
+     * Generations the pool can run at once right now: {@code ollama.max-concurrency} for every
+     * instance that is healthy and not ejected.
+     */
+    public int capacity() {
+        long now = System.currentTimeMillis();
+        return maxConcurrency * (int) instances.stream().filter(instance -> instance.isAvailable(now)).count();
+    }
+
+    /**
+     * Picks the instance with the lowest expected wait, blocking while every usable instance is
+     * at {@code ollama.max-concurrency}.
+     */
+    public synchronized Instance acquire(String model) throws IOException {
+        long deadline = System.currentTimeMillis() + acquireTimeoutMs;
+        while (true) {
+            long now = System.currentTimeMillis();
+            Instance best = null;
+            double bestScore = Double.MAX_VALUE;
+            boolean anyAvailable = false;
+            double fallbackLatency = medianLatency(now);
+
+            for (Instance instance : instances) {
+                if (!instance.isAvailable(now)) {
+                    continue;
+                }
+                anyAvailable = true;
+                if (instance.outstanding.get() >= maxConcurrency) {
+                    continue;
+                }
+                double score = (instance.outstanding.get() + 1)
+                        * (instance.ewmaMillis > 0 ? instance.ewmaMillis : fallbackLatency)
+                        * affinityPenalty(instance.affinity(model));
+                if (score < bestScore) {
+                    best = instance;
+                    bestScore = score;
+                }
+            }
+
+            if (!anyAvailable) {
+                throw new IOException("No healthy Ollama instance available");
+            }
+            if (best != null) {
+                best.outstanding.incrementAndGet();
+                return best;
+            }
+
+            long remaining = deadline - now;
+            if (remaining <= 0) {
+                throw new IOException("All Ollama instances are at capacity");
+            }
+            try {
+                wait(remaining);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for an Ollama instance", e);
+            }
+        }
+    }
+
+    public void release(Instance instance, long latencyNanos, boolean success) {
+        instance.outstanding.decrementAndGet();
+        synchronized (this) {
+            notifyAll();
+        }
+        if (!success) {
+            if (instance.consecutiveFailures.incrementAndGet() >= MAX_CONSECUTIVE_FAILURES) {
+                instance.healthy = false;
+            }
+            return;
+        }
+
+        instance.consecutiveFailures.set(0);
+        double latencyMillis = latencyNanos / 1_000_000.0;
+        synchronized (instance) {
+            instance.ewmaMillis = instance.ewmaMillis == 0
+                    ? latencyMillis
+                    : EWMA_ALPHA * latencyMillis + (1 - EWMA_ALPHA) * instance.ewmaMillis;
+        }
+        ejectIfSlow(instance);
+    }
+
+    @Scheduled(fixedDelayString = "${ollama.health.interval-ms:10000}")
+    public void probeInstances() {
+        for (Instance instance : instances) {
+            try {
+                instance.availableModels = fetchModelNames(instance.baseUrl + "/api/tags");
+                instance.healthy = true;
+                instance.consecutiveFailures.set(0);
+                instance.lastError = null;
+            } catch (IOException e) {
+                instance.healthy = false;
+                instance.lastError = e.getMessage();
+                continue;
+            }
+            try {
+                instance.loadedModels = fetchModelNames(instance.baseUrl + "/api/ps");
+            } catch (IOException e) {
+                // Older Ollama versions have no /api/ps; fall back to availability only
+                instance.loadedModels = Set.of();
+            }
+        }
+    }
+
+    public Map<String, Object> getHealth() {
+        long now = System.currentTimeMillis();
+        List<Map<String, Object>> details = new ArrayList<>();
+        int available = 0;
+
+        for (Instance instance : instances) {
+            boolean usable = instance.isAvailable(now);
+            if (usable) {
+                available++;
+            }
+            Map<String, Object> detail = new HashMap<>();
+            detail.put("url", instance.baseUrl);
+            detail.put("healthy", instance.healthy);
+            detail.put("ejected", instance.ejectedUntil > now);
+            detail.put("outstanding", instance.outstanding.get());
+            detail.put("latencyEwmaMs", Math.round(instance.ewmaMillis));
+            detail.put("models", instance.availableModels);
+            detail.put("loadedModels", instance.loadedModels);
+            if (instance.lastError != null) {
+                detail.put("error", instance.lastError);
+            }
+            details.add(detail);
+        }
+
+        Map<String, Object> health = new HashMap<>();
+        health.put("status", available == 0 ? "unavailable" : available < instances.size() ? "degraded" : "healthy");
+        health.put("available", available);
+        health.put("instances", details);
+        return health;
+    }
+
+    private Set<String> fetchModelNames(String url) throws IOException {
+        Request request = new Request.Builder()
+                .url(url)
+                .get()
+                .build();
+
+        try (Response response = probeClient.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                throw new IOException("Ollama probe failed: " + response.code());
+            }
+
+            JsonNode models = objectMapper.readTree(response.body().string()).get("models");
+            Set<String> names = new HashSet<>();
+            if (models != null) {
+                for (JsonNode model : models) {
+                    names.add(model.get("name").asText());
+                }
+            }
+            return names;
+        }
+    }
+
+    private double affinityPenalty(int affinity) {
+        return affinity == 2 ? 1.0 : affinity == 1 ? coldPenalty : missingPenalty;
+    }
+
+    // Instances without latency samples yet are assumed to be as fast as their peers
+    private double medianLatency(long now) {
+        double[] known = instances.stream()
+                .filter(instance -> instance.isAvailable(now) && instance.ewmaMillis > 0)
+                .mapToDouble(instance -> instance.ewmaMillis)
+                .sorted()
+                .toArray();
+        return known.length == 0 ? 1.0 : known[known.length / 2];
+    }
+
+    // Eject an instance whose latency is far above the median of its healthy peers
+    private void ejectIfSlow(Instance instance) {
+        long now = System.currentTimeMillis();
+        double[] peers = instances.stream()
+                .filter(peer -> peer != instance && peer.isAvailable(now) && peer.ewmaMillis > 0)
+                .mapToDouble(peer -> peer.ewmaMillis)
+                .sorted()
+                .toArray();
+        if (peers.length == 0) {
+            return;
+        }
+
+        double median = peers[peers.length / 2];
+        if (instance.ewmaMillis > ejectLatencyFactor * median) {
+            synchronized (instance) {
+                instance.ejectedUntil = now + ejectCooldownMs;
+                // Give it a fair retry once the cool-down ends
+                instance.ewmaMillis = median;
+            }
+        }
+    }
+
+    public static final class Instance {
+        private final String baseUrl;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private volatile boolean healthy = true;
+        private volatile long ejectedUntil;
+        private volatile double ewmaMillis;
+        private volatile Set<String> availableModels = Set.of();
+        private volatile Set<String> loadedModels = Set.of();
+        private volatile String lastError;
+
+        private Instance(String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+
+        public String getBaseUrl() {
+            return baseUrl;
+        }
+
+        private boolean isAvailable(long now) {
+            return healthy && ejectedUntil <= now;
+        }
+
+        // 2 = model already loaded, 1 = model pulled (or not yet probed), 0 = model missing
+        private int affinity(String model) {
+            if (matches(loadedModels, model)) {
+                return 2;
+            }
+            return availableModels.isEmpty() || matches(availableModels, model) ? 1 : 0;
+        }
+
+        private static boolean matches(Set<String> names, String model) {
+            return names.contains(model) || (!model.contains(":") && names.contains(model + ":latest"));
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.smartroute.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory type-ahead index over a gazetteer of place names (English, Telugu and
+ * transliterations). Every name and every word suffix of a name is stored in one sorted key
+ * array, so the completions of a prefix are a contiguous range found by binary search.
+ *
+ * <p>Gazetteer lines are tab-separated: name, Telugu name, comma-separated aliases, lat, lng,
+ * importance (0..1) and address. Lines starting with {@code #} are ignored.
+ */
+@Component
+public class PlaceAutocompleteIndex {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{M}\\p{N}]+");
+
+    private static final byte FULL_NAME = 0;
+    private static final byte WORD = 1;
+
+    @Value("${autocomplete.gazetteer:classpath:gazetteer/hyderabad.tsv}")
+    private String gazetteerLocation;
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    private List<Place> places = List.of();
+    private String[] keys = new String[0];
+    private int[] keyPlaces = new int[0];
+    private byte[] keyKinds = new byte[0];
+
+    @PostConstruct
+    public void load() throws IOException {
+        Resource resource = resourceLoader.getResource(gazetteerLocation);
+        List<Place> loaded = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] columns = line.split("\t", -1);
+                if (columns.length < 7) {
+                    throw new IOException("Malformed gazetteer line: " + line);
+                }
+                loaded.add(new Place(columns[0], columns[1], columns[2],
+                        Double.parseDouble(columns[3]), Double.parseDouble(columns[4]),
+                        Double.parseDouble(columns[5]), columns[6]));
+            }
+        }
+        build(loaded);
+    }
+
+    /**
+     * Returns up to {@code limit} places whose name, Telugu name or alias starts with the query
+     * (or has a word that does), best first. Full-name matches rank above word matches, longer
+     * coverage of the name ranks higher, and when a location is given nearer places win.
+     */
+    public List<Map<String, Object>> search(String query, Double lat, Double lng, int limit) {
+        String prefix = normalize(query);
+        if (prefix.isEmpty()) {
+            return List.of();
+        }
+
+        // The whole range is scored: its alphabetical order says nothing about rank
+        Map<Integer, Double> bestMatches = new HashMap<>();
+        for (int i = lowerBound(prefix); i < keys.length && keys[i].startsWith(prefix); i++) {
+            double quality = keyKinds[i] == WORD ? 1.0 : keys[i].length() == prefix.length() ? 3.0 : 2.0;
+            double coverage = (double) prefix.length() / keys[i].length();
+            bestMatches.merge(keyPlaces[i], quality + coverage, Math::max);
+        }
+
+        // Importance and distance belong to the place, so they are added once per place
+        Map<Integer, Double> scores = new HashMap<>();
+        bestMatches.forEach((id, match) -> {
+            Place place = places.get(id);
+            double score = match + 0.5 * place.importance;
+            if (lat != null && lng != null) {
+                score -= 0.6 * Math.log10(1 + GeoUtils.haversineKm(lat, lng, place.lat, place.lng));
+            }
+            scores.put(id, score);
+        });
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        scores.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Double>comparingByValue().reversed())
+                .limit(limit)
+                .forEach(entry -> results.add(places.get(entry.getKey()).toMap(lat, lng)));
+        return results;
+    }
+
+    public int size() {
+        return places.size();
+    }
+
+    private void build(List<Place> loaded) {
+        List<IndexKey> entries = new ArrayList<>();
+        for (int id = 0; id < loaded.size(); id++) {
+            Place place = loaded.get(id);
+            Set<String> names = new LinkedHashSet<>();
+            names.add(normalize(place.name));
+            names.add(normalize(place.teluguName));
+            for (String alias : place.aliases.split(",")) {
+                names.add(normalize(alias));
+            }
+            names.remove("");
+
+            for (String name : names) {
+                entries.add(new IndexKey(name, id, FULL_NAME));
+                for (int i = name.indexOf(' '); i >= 0; i = name.indexOf(' ', i + 1)) {
+                    entries.add(new IndexKey(name.substring(i + 1), id, WORD));
+                }
+            }
+        }
+        entries.sort(Comparator.comparing(IndexKey::text));
+
+        String[] sortedKeys = new String[entries.size()];
+        int[] sortedPlaces = new int[entries.size()];
+        byte[] sortedKinds = new byte[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            sortedKeys[i] = entries.get(i).text();
+            sortedPlaces[i] = entries.get(i).place();
+            sortedKinds[i] = entries.get(i).kind();
+        }
+
+        this.places = List.copyOf(loaded);
+        this.keys = sortedKeys;
+        this.keyPlaces = sortedPlaces;
+        this.keyKinds = sortedKinds;
+    }
+
+    // First key >= prefix; keys repeat (e.g. "hills"), so Arrays.binarySearch is not enough
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = keys.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (keys[mid].compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return NON_WORD.matcher(text.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private record IndexKey(String text, int place, byte kind) {
+    }
+
+    private static final class Place {
+        private final String name;
+        private final String teluguName;
+        private final String aliases;
+        private final double lat;
+        private final double lng;
+        private final double importance;
+        private final String address;
+
+        private Place(String name, String teluguName, String aliases, double lat, double lng,
+                      double importance, String address) {
+            this.name = name;
+            this.teluguName = teluguName;
+            this.aliases = aliases;
+            this.lat = lat;
+            this.lng = lng;
+            this.importance = importance;
+            this.address = address;
+        }
+
+        private Map<String, Object> toMap(Double fromLat, Double fromLng) {
+            Map<String, Object> placeInfo = new HashMap<>();
+            placeInfo.put("name", name);
+            placeInfo.put("teluguName", teluguName);
+            placeInfo.put("address", address);
+            placeInfo.put("lat", lat);
+            placeInfo.put("lng", lng);
+            if (fromLat != null && fromLng != null) {
+                placeInfo.put("distanceKm", Math.round(GeoUtils.haversineKm(fromLat, fromLng, lat, lng) * 10) / 10.0);
+            }
+            return placeInfo;
+        }
+    }
+}
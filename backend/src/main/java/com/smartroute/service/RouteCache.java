@@ -0,0 +1,96 @@
+package com.smartroute.service;
+
+import com.smartroute.dto.RouteResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Short-lived cache of routes keyed by origin and destination rounded to
+ * {@code route-cache.precision} decimal places.
+ */
+@Component
+public class RouteCache {
+
+    @Value("${route-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    @Value("${route-cache.max-entries:1000}")
+    private int maxEntries;
+
+    @Value("${route-cache.precision:4}")
+    private int precision;
+
+    @Value("${route-cache.compress-min-bytes:1024}")
+    private int compressMinBytes;
+
+    private final Map<String, CachedRoute> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the cache key for a pair of lat/lng locations, or null if either has no coordinates.
+     */
+    public String key(Map<String, Object> origin, Map<String, Object> destination) {
+        String from = cell(origin);
+        String to = cell(destination);
+        return from == null || to == null ? null : from + "|" + to;
+    }
+
+    public CachedRoute get(String key) {
+        CachedRoute route = entries.get(key);
+        if (route == null) {
+            return null;
+        }
+        if (route.isExpired(System.currentTimeMillis())) {
+            entries.remove(key, route);
+            return null;
+        }
+        return route;
+    }
+
+    public CachedRoute put(String key, RouteResponse response) {
+        return put(key, response, ttlSeconds);
+    }
+
+    public CachedRoute put(String key, RouteResponse response, long ttlSeconds) {
+        CachedRoute route = wrap(response, System.currentTimeMillis() + ttlSeconds * 1000);
+        if (entries.size() >= maxEntries) {
+            evictExpired();
+        }
+        if (entries.size() < maxEntries) {
+            entries.put(key, route);
+        }
+        return route;
+    }
+
+    /**
+     * Wraps a response that is not cached so callers can still use the serialized forms.
+     */
+    public CachedRoute wrap(RouteResponse response) {
+        return wrap(response, 0);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private CachedRoute wrap(RouteResponse response, long expiresAt) {
+        return new CachedRoute(response, expiresAt, compressMinBytes);
+    }
+
+    private void evictExpired() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(route -> route.isExpired(now));
+    }
+
+    private String cell(Map<String, Object> location) {
+        if (location == null || !(location.get("lat") instanceof Number) || !(location.get("lng") instanceof Number)) {
+            return null;
+        }
+        double lat = ((Number) location.get("lat")).doubleValue();
+        double lng = ((Number) location.get("lng")).doubleValue();
+        return String.format(Locale.ROOT, "%." + precision + "f,%." + precision + "f", lat, lng);
+    }
+}
@@ -0,0 +1,172 @@
+package com.smartroute.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Warms the route and geocode caches ahead of recurring trips. Every run looks up the trips and
+ * searches {@link TripHistory} expects in this hour or the next and refreshes the ones whose
+ * cached entries are missing or about to expire.
+ *
+ * <p>Runs are skipped while live traffic is above {@code prefetch.busy-requests-per-minute}, and
+ * at most {@code prefetch.hourly-quota} upstream calls are spent per clock hour.
+ *
+ * <p>Runs go on a thread of their own rather than the shared {@code @Scheduled} one, so slow
+ * OpenRouteService calls never hold up the Ollama health probes.
+ */
+@Service
+public class RoutePrefetcher {
+
+    @Value("${prefetch.enabled:true}")
+    private boolean enabled;
+
+    @Value("${prefetch.min-count:3}")
+    private int minCount;
+
+    @Value("${prefetch.hourly-quota:120}")
+    private int hourlyQuota;
+
+    @Value("${prefetch.busy-requests-per-minute:30}")
+    private long busyRequestsPerMinute;
+
+    @Value("${prefetch.route-ttl-seconds:1800}")
+    private long routeTtlSeconds;
+
+    @Value("${prefetch.interval-ms:300000}")
+    private long intervalMs;
+
+    @Value("${prefetch.initial-delay-ms:60000}")
+    private long initialDelayMs;
+
+    @Value("${geocode-cache.ttl-seconds:86400}")
+    private long geocodeTtlSeconds;
+
+    @Autowired
+    private NavigationService navigationService;
+
+    @Autowired
+    private RouteCache routeCache;
+
+    @Autowired
+    private TripHistory tripHistory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final AtomicLong quotaHour = new AtomicLong();
+    private final AtomicLong quotaUsed = new AtomicLong();
+    private final AtomicLong skippedBusy = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    private Counter routesWarmed;
+    private Counter geocodesWarmed;
+    private ScheduledExecutorService scheduler;
+
+    @PostConstruct
+    public void start() {
+        routesWarmed = meterRegistry.counter("prefetch.warmed", "kind", "route");
+        geocodesWarmed = meterRegistry.counter("prefetch.warmed", "kind", "geocode");
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "route-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                warmUp();
+            } catch (RuntimeException e) {
+                // An exception would cancel every later run
+                failures.incrementAndGet();
+            }
+        }, initialDelayMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        if (tripHistory.requestsLastMinute() > busyRequestsPerMinute) {
+            skippedBusy.incrementAndGet();
+            return;
+        }
+
+        long hour = System.currentTimeMillis() / 3_600_000;
+        if (quotaHour.getAndSet(hour) != hour) {
+            quotaUsed.set(0);
+        }
+        // Warm entries that expired unused no longer count as pending
+        tripHistory.expireWarm(routeTtlSeconds * 1000, geocodeTtlSeconds * 1000);
+
+        // Refresh anything that would expire before the next run
+        long refreshBefore = System.currentTimeMillis() + 2 * intervalMs;
+        for (TripHistory.Trip trip : tripHistory.upcomingTrips(minCount)) {
+            CachedRoute cached = routeCache.get(trip.cacheKey());
+            if (cached != null && cached.getExpiresAt() > refreshBefore) {
+                continue;
+            }
+            if (!takeQuota()) {
+                return;
+            }
+            try {
+                if (navigationService.warmRoute(trip.origin(), trip.destination(), routeTtlSeconds) != null) {
+                    tripHistory.markRouteWarmed(trip.cacheKey());
+                    routesWarmed.increment();
+                }
+            } catch (Exception e) {
+                failures.incrementAndGet();
+            }
+        }
+
+        for (String query : tripHistory.upcomingSearches(minCount)) {
+            if (navigationService.isGeocodeCached(query, refreshBefore)) {
+                continue;
+            }
+            if (!takeQuota()) {
+                return;
+            }
+            try {
+                navigationService.warmGeocode(query);
+                tripHistory.markGeocodeWarmed(query);
+                geocodesWarmed.increment();
+            } catch (Exception e) {
+                failures.incrementAndGet();
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>(tripHistory.getStats());
+        stats.put("enabled", enabled);
+        stats.put("quotaUsedThisHour", quotaUsed.get());
+        stats.put("hourlyQuota", hourlyQuota);
+        stats.put("skippedBusy", skippedBusy.get());
+        stats.put("failures", failures.get());
+        return stats;
+    }
+
+    private boolean takeQuota() {
+        if (quotaUsed.get() >= hourlyQuota) {
+            return false;
+        }
+        quotaUsed.incrementAndGet();
+        return true;
+    }
+}
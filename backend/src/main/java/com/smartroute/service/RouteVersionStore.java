@@ -0,0 +1,177 @@
+package com.smartroute.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartroute.dto.RouteResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers recently issued routes by version id so a reroute can be sent as a delta against
+ * the route the client already has. Version ids are derived from the route content.
+ *
+ * <p>Only what a diff needs is kept per version: a 64-bit hash per step and the geometry as a
+ * flat lat/lng array, a few tens of kilobytes for a long route.
+ */
+@Component
+public class RouteVersionStore {
+
+    private final Map<String, StoredRoute> versions;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public RouteVersionStore(@Value("${route-versions.max-entries:2000}") int maxEntries) {
+        this.versions = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, StoredRoute> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * Assigns a version id to a full route and remembers it.
+     */
+    public void register(RouteResponse route) {
+        String version = versionOf(route.getSteps(), route.getGeometry());
+        route.setVersion(version);
+        versions.put(version, new StoredRoute(stepHashes(orEmpty(route.getSteps())), coordinates(orEmpty(route.getGeometry()))));
+    }
+
+    /**
+     * Full geometry of an issued route, or null if the version is unknown.
+     */
+    public List<Map<String, Object>> geometry(String version) {
+        StoredRoute stored = version == null ? null : versions.get(version);
+        if (stored == null) {
+            return null;
+        }
+        List<Map<String, Object>> geometry = new ArrayList<>(stored.coordinates().length / 2);
+        for (int i = 0; i < stored.coordinates().length; i += 2) {
+            Map<String, Object> point = new HashMap<>();
+            point.put("lat", stored.coordinates()[i]);
+            point.put("lng", stored.coordinates()[i + 1]);
+            geometry.add(point);
+        }
+        return geometry;
+    }
+
+    /**
+     * Returns a delta of {@code route} against {@code baseVersion}, or the full route if the base
+     * version is unknown or shares nothing with the new route.
+     */
+    public RouteResponse diff(RouteResponse route, String baseVersion) {
+        StoredRoute base = baseVersion == null ? null : versions.get(baseVersion);
+        if (base == null || baseVersion.equals(route.getVersion())) {
+            return route;
+        }
+
+        List<Map<String, Object>> steps = orEmpty(route.getSteps());
+        List<Map<String, Object>> geometry = orEmpty(route.getGeometry());
+
+        int sharedSteps = commonSuffix(base.stepHashes(), stepHashes(steps));
+        int sharedPoints = commonSuffix(base.coordinates(), geometry);
+        if (sharedSteps == 0 && sharedPoints == 0) {
+            return route;
+        }
+
+        RouteResponse delta = new RouteResponse(route.getRoute(), route.getError());
+        delta.setDuration(route.getDuration());
+        delta.setDistance(route.getDistance());
+        delta.setVersion(route.getVersion());
+        delta.setBaseVersion(baseVersion);
+        delta.setDelta(true);
+        delta.setSteps(steps.subList(0, steps.size() - sharedSteps));
+        delta.setRetainedStepsFrom(base.stepHashes().length - sharedSteps);
+        delta.setGeometry(geometry.subList(0, geometry.size() - sharedPoints));
+        delta.setRetainedGeometryFrom(base.coordinates().length / 2 - sharedPoints);
+        return delta;
+    }
+
+    private int commonSuffix(long[] base, long[] current) {
+        int shared = 0;
+        int max = Math.min(base.length, current.length);
+        while (shared < max && base[base.length - 1 - shared] == current[current.length - 1 - shared]) {
+            shared++;
+        }
+        return shared;
+    }
+
+    private int commonSuffix(double[] base, List<Map<String, Object>> current) {
+        int shared = 0;
+        int max = Math.min(base.length / 2, current.size());
+        while (shared < max) {
+            int i = base.length - 2 - 2 * shared;
+            Map<String, Object> point = current.get(current.size() - 1 - shared);
+            if (Double.compare(base[i], coordinate(point, "lat")) != 0
+                    || Double.compare(base[i + 1], coordinate(point, "lng")) != 0) {
+                break;
+            }
+            shared++;
+        }
+        return shared;
+    }
+
+    private long[] stepHashes(List<Map<String, Object>> steps) {
+        long[] hashes = new long[steps.size()];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = hash(steps.get(i));
+        }
+        return hashes;
+    }
+
+    // 64-bit FNV-1a over the serialized step; collisions across one route's steps are negligible
+    private long hash(Map<String, Object> step) {
+        try {
+            long hash = 0xcbf29ce484222325L;
+            for (byte b : objectMapper.writeValueAsBytes(step)) {
+                hash = (hash ^ (b & 0xff)) * 0x100000001b3L;
+            }
+            return hash;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to hash route step", e);
+        }
+    }
+
+    private double[] coordinates(List<Map<String, Object>> geometry) {
+        double[] coordinates = new double[geometry.size() * 2];
+        for (int i = 0; i < geometry.size(); i++) {
+            coordinates[2 * i] = coordinate(geometry.get(i), "lat");
+            coordinates[2 * i + 1] = coordinate(geometry.get(i), "lng");
+        }
+        return coordinates;
+    }
+
+    private double coordinate(Map<String, Object> point, String key) {
+        Object value = point.get(key);
+        return value instanceof Number number ? number.doubleValue() : Double.NaN;
+    }
+
+    private List<Map<String, Object>> orEmpty(List<Map<String, Object>> list) {
+        return list == null ? List.of() : list;
+    }
+
+    private String versionOf(List<Map<String, Object>> steps, List<Map<String, Object>> geometry) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(objectMapper.writeValueAsBytes(orEmpty(steps)));
+            digest.update(objectMapper.writeValueAsBytes(orEmpty(geometry)));
+            return HexFormat.of().formatHex(digest.digest(), 0, 8);
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Failed to compute route version", e);
+        }
+    }
+
+    private record StoredRoute(long[] stepHashes, double[] coordinates) {
+    }
+}
@@ -0,0 +1,298 @@
+package com.smartroute.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Spoken weather summary for the road ahead. Points are sampled along the route geometry,
+ * collapsed to one per weather tile, and their forecasts fetched in parallel on a small pool.
+ * Whatever has arrived when the latency budget runs out is summarized; the rest is skipped.
+ */
+@Service
+public class RouteWeatherService {
+
+    @Value("${openweather.api-key:}")
+    private String openWeatherApiKey;
+
+    @Value("${openweather.base-url:https://api.openweathermap.org/data/2.5}")
+    private String openWeatherBaseUrl;
+
+    @Value("${weather.route.sample-spacing-km:10}")
+    private double sampleSpacingKm;
+
+    @Value("${weather.route.max-samples:12}")
+    private int maxSamples;
+
+    @Value("${weather.route.tile-degrees:0.1}")
+    private double tileDegrees;
+
+    @Value("${weather.route.budget-ms:2500}")
+    private long budgetMs;
+
+    @Value("${weather.route.average-speed-kmh:40}")
+    private double averageSpeedKmh;
+
+    @Value("${weather.route.cache-ttl-seconds:600}")
+    private long cacheTtlSeconds;
+
+    @Value("${weather.route.cache-max-entries:2000}")
+    private int cacheMaxEntries;
+
+    private final ExecutorService fetchPool;
+
+    private final OkHttpClient client = new OkHttpClient.Builder()
+            .connectTimeout(5, TimeUnit.SECONDS)
+            .readTimeout(5, TimeUnit.SECONDS)
+            .build();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Forecasts per weather tile, shared across requests
+    private final Map<String, CachedForecast> forecastCache = new ConcurrentHashMap<>();
+
+    public RouteWeatherService(@Value("${weather.route.concurrency:4}") int concurrency) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.fetchPool = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "route-weather-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        fetchPool.shutdownNow();
+    }
+
+    /**
+     * Summarizes the weather on the part of the route still ahead of {@code currentLocation};
+     * without a location the whole route is sampled.
+     */
+    public String summarizeAlongRoute(List<Map<String, Object>> geometry, Map<String, Object> currentLocation) {
+        if (openWeatherApiKey == null || openWeatherApiKey.isEmpty()) {
+            return "Weather service is not configured. Please set up OpenWeatherMap API key.";
+        }
+
+        List<Sample> samples = sample(ahead(geometry, coordinates(currentLocation)));
+        if (samples.isEmpty()) {
+            return "I don't have an active route to check the weather along.";
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMs);
+        List<CompletableFuture<Forecast>> pending = new ArrayList<>();
+        for (Sample sample : samples) {
+            pending.add(CompletableFuture.supplyAsync(() -> forecastAt(sample), fetchPool));
+        }
+
+        List<Forecast> forecasts = new ArrayList<>();
+        for (CompletableFuture<Forecast> future : pending) {
+            long remaining = deadline - System.nanoTime();
+            try {
+                forecasts.add(future.get(Math.max(remaining, 0), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException | ExecutionException e) {
+                future.cancel(true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        if (forecasts.isEmpty()) {
+            return "I'm sorry, I couldn't get the weather along your route right now.";
+        }
+        return summarize(forecasts, samples.size());
+    }
+
+    // The route from the point nearest to the driver onwards
+    private List<Map<String, Object>> ahead(List<Map<String, Object>> geometry, double[] current) {
+        if (geometry == null || current == null) {
+            return geometry;
+        }
+        int nearest = 0;
+        double nearestKm = Double.MAX_VALUE;
+        for (int i = 0; i < geometry.size(); i++) {
+            double[] point = coordinates(geometry.get(i));
+            if (point == null) {
+                continue;
+            }
+            double km = GeoUtils.haversineKm(current[0], current[1], point[0], point[1]);
+            if (km < nearestKm) {
+                nearestKm = km;
+                nearest = i;
+            }
+        }
+        return geometry.subList(nearest, geometry.size());
+    }
+
+    private List<Sample> sample(List<Map<String, Object>> geometry) {
+        Map<String, Sample> byTile = new LinkedHashMap<>();
+        if (geometry == null || geometry.isEmpty()) {
+            return List.of();
+        }
+
+        double travelledKm = 0;
+        double nextSampleKm = 0;
+        double[] previous = null;
+        for (int i = 0; i < geometry.size() && byTile.size() < maxSamples; i++) {
+            double[] point = coordinates(geometry.get(i));
+            if (point == null) {
+                continue;
+            }
+            if (previous != null) {
+                travelledKm += GeoUtils.haversineKm(previous[0], previous[1], point[0], point[1]);
+            }
+            previous = point;
+
+            boolean last = i == geometry.size() - 1;
+            if (travelledKm >= nextSampleKm || last) {
+                // Nearby samples share a tile; the first (nearest) one represents it
+                byTile.putIfAbsent(tileKey(point[0], point[1]), new Sample(point[0], point[1], travelledKm));
+                nextSampleKm = travelledKm + sampleSpacingKm;
+            }
+        }
+        return new ArrayList<>(byTile.values());
+    }
+
+    private Forecast forecastAt(Sample sample) {
+        String tile = tileKey(sample.lat, sample.lng);
+        CachedForecast cached = forecastCache.get(tile);
+        JsonNode forecast;
+        if (cached != null && cached.expiresAt > System.currentTimeMillis()) {
+            forecast = cached.forecast;
+        } else {
+            forecast = fetchForecast(sample.lat, sample.lng);
+            cacheForecast(tile, forecast);
+        }
+
+        // Use the 3-hour forecast slot closest to when the driver reaches this point
+        long etaSeconds = System.currentTimeMillis() / 1000 + (long) (sample.distanceKm / averageSpeedKmh * 3600);
+        JsonNode best = null;
+        for (JsonNode slot : forecast.get("list")) {
+            if (best == null || Math.abs(slot.get("dt").asLong() - etaSeconds) < Math.abs(best.get("dt").asLong() - etaSeconds)) {
+                best = slot;
+            }
+        }
+        if (best == null) {
+            throw new IllegalStateException("Empty forecast");
+        }
+
+        JsonNode weather = best.get("weather").get(0);
+        String city = forecast.has("city") ? forecast.get("city").path("name").asText("") : "";
+        return new Forecast(sample, best.get("main").get("temp").asDouble(), weather.get("id").asInt(),
+                weather.get("description").asText(), city);
+    }
+
+    private void cacheForecast(String tile, JsonNode forecast) {
+        long now = System.currentTimeMillis();
+        if (forecastCache.size() >= cacheMaxEntries && !forecastCache.containsKey(tile)) {
+            forecastCache.values().removeIf(entry -> entry.expiresAt <= now);
+        }
+        // Tiles past the cap are simply fetched again next time
+        if (forecastCache.size() < cacheMaxEntries || forecastCache.containsKey(tile)) {
+            forecastCache.put(tile, new CachedForecast(forecast, now + cacheTtlSeconds * 1000));
+        }
+    }
+
+    private JsonNode fetchForecast(double lat, double lng) {
+        String url = String.format(Locale.ROOT,
+                "%s/forecast?lat=%f&lon=%f&appid=%s&units=metric&cnt=8",
+                openWeatherBaseUrl, lat, lng, openWeatherApiKey
+        );
+
+        Request request = new Request.Builder()
+                .url(url)
+                .get()
+                .build();
+
+        try (Response response = client.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                throw new IOException("Weather API request failed: " + response.code());
+            }
+            return objectMapper.readTree(response.body().string());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String summarize(List<Forecast> forecasts, int sampled) {
+        forecasts.sort((a, b) -> Double.compare(a.sample.distanceKm, b.sample.distanceKm));
+
+        double minTemp = Double.MAX_VALUE;
+        double maxTemp = -Double.MAX_VALUE;
+        Forecast firstWet = null;
+        for (Forecast forecast : forecasts) {
+            minTemp = Math.min(minTemp, forecast.temperature);
+            maxTemp = Math.max(maxTemp, forecast.temperature);
+            if (firstWet == null && forecast.isWet()) {
+                firstWet = forecast;
+            }
+        }
+
+        StringBuilder summary = new StringBuilder();
+        if (firstWet == null) {
+            summary.append("No rain expected along your route");
+        } else if (firstWet.sample.distanceKm < 1) {
+            summary.append("Expect ").append(firstWet.description).append(" right where you are");
+        } else {
+            summary.append(String.format(Locale.ROOT, "Expect %s about %.0f km ahead",
+                    firstWet.description, firstWet.sample.distanceKm));
+            if (!firstWet.city.isEmpty()) {
+                summary.append(" near ").append(firstWet.city);
+            }
+        }
+        summary.append(String.format(Locale.ROOT, ". Temperatures between %.0f and %.0f°C.", minTemp, maxTemp));
+
+        if (forecasts.size() < sampled) {
+            summary.append(String.format(Locale.ROOT, " (Checked %d of %d points on the route.)", forecasts.size(), sampled));
+        }
+        return summary.toString();
+    }
+
+    private String tileKey(double lat, double lng) {
+        return (long) Math.floor(lat / tileDegrees) + ":" + (long) Math.floor(lng / tileDegrees);
+    }
+
+    private double[] coordinates(Map<String, Object> point) {
+        if (point == null || !(point.get("lat") instanceof Number) || !(point.get("lng") instanceof Number)) {
+            return null;
+        }
+        return new double[]{((Number) point.get("lat")).doubleValue(), ((Number) point.get("lng")).doubleValue()};
+    }
+
+    private record Sample(double lat, double lng, double distanceKm) {
+    }
+
+    private record CachedForecast(JsonNode forecast, long expiresAt) {
+    }
+
+    private record Forecast(Sample sample, double temperature, int conditionId, String description, String city) {
+
+        // OpenWeatherMap condition groups: 2xx thunderstorm, 3xx drizzle, 5xx rain, 6xx snow
+        private boolean isWet() {
+            int group = conditionId / 100;
+            return group == 2 || group == 3 || group == 5 || group == 6;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.smartroute.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Learns which trips and place searches recur at which hour of the day, and tracks whether the
+ * entries warmed for them by {@link RoutePrefetcher} are actually used.
+ *
+ * <p>Trips are grouped by origin cell ({@code prefetch.origin-cell-degrees}, about 1 km) and
+ * destination. Within a group the most frequent exact route cache key is what gets warmed, since
+ * only that key can produce a cache hit.
+ */
+@Component
+public class TripHistory {
+
+    private static final int MAX_KEYS_PER_PAIR = 8;
+
+    @Value("${prefetch.origin-cell-degrees:0.01}")
+    private double originCellDegrees;
+
+    @Value("${prefetch.max-tracked:5000}")
+    private int maxTracked;
+
+    private final Map<String, TripPattern> trips = new ConcurrentHashMap<>();
+    private final Map<String, HourlyCounts> searches = new ConcurrentHashMap<>();
+
+    // Keys warmed by the prefetcher that no request has used yet
+    private final Map<String, Long> warmRoutes = new ConcurrentHashMap<>();
+    private final Map<String, Long> warmGeocodes = new ConcurrentHashMap<>();
+
+    private final AtomicLong routesWarmed = new AtomicLong();
+    private final AtomicLong routesUsed = new AtomicLong();
+    private final AtomicLong geocodesWarmed = new AtomicLong();
+    private final AtomicLong geocodesUsed = new AtomicLong();
+
+    // Live request counts per minute, for telling busy periods from off-peak ones
+    private final AtomicLong currentMinute = new AtomicLong();
+    private final AtomicLong currentMinuteRequests = new AtomicLong();
+    private final AtomicLong previousMinuteRequests = new AtomicLong();
+
+    public void recordTrip(String cacheKey, Map<String, Object> origin, Map<String, Object> destination) {
+        countRequest();
+        if (trips.size() >= maxTracked && !trips.containsKey(pairOf(cacheKey, origin))) {
+            return;
+        }
+        TripPattern pattern = trips.computeIfAbsent(pairOf(cacheKey, origin), pair -> new TripPattern());
+        pattern.counts.incrementAndGet(LocalTime.now().getHour());
+        pattern.record(cacheKey, origin, destination);
+    }
+
+    public void recordSearch(String query) {
+        countRequest();
+        if (searches.size() >= maxTracked && !searches.containsKey(query)) {
+            return;
+        }
+        searches.computeIfAbsent(query, q -> new HourlyCounts()).counts.incrementAndGet(LocalTime.now().getHour());
+    }
+
+    public void recordRouteHit(String cacheKey) {
+        if (warmRoutes.remove(cacheKey) != null) {
+            routesUsed.incrementAndGet();
+        }
+    }
+
+    public void recordGeocodeHit(String query) {
+        if (warmGeocodes.remove(query) != null) {
+            geocodesUsed.incrementAndGet();
+        }
+    }
+
+    public void markRouteWarmed(String cacheKey) {
+        warmRoutes.put(cacheKey, System.currentTimeMillis());
+        routesWarmed.incrementAndGet();
+    }
+
+    public void markGeocodeWarmed(String query) {
+        warmGeocodes.put(query, System.currentTimeMillis());
+        geocodesWarmed.incrementAndGet();
+    }
+
+    /**
+     * Trips taken at least {@code minCount} times in this hour or the next on past days, most
+     * frequent first.
+     */
+    public List<Trip> upcomingTrips(int minCount) {
+        int hour = LocalTime.now().getHour();
+        return trips.values().stream()
+                .map(pattern -> pattern.toTrip(hour))
+                .filter(trip -> trip != null && trip.count() >= minCount)
+                .sorted(Comparator.comparingInt(Trip::count).reversed())
+                .toList();
+    }
+
+    public List<String> upcomingSearches(int minCount) {
+        int hour = LocalTime.now().getHour();
+        return searches.entrySet().stream()
+                .filter(entry -> entry.getValue().around(hour) >= minCount)
+                .sorted(Comparator.comparingInt((Map.Entry<String, HourlyCounts> entry) -> entry.getValue().around(hour)).reversed())
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    public long requestsLastMinute() {
+        long minute = System.currentTimeMillis() / 60000;
+        if (currentMinute.get() == minute) {
+            return Math.max(currentMinuteRequests.get(), previousMinuteRequests.get());
+        }
+        return currentMinute.get() == minute - 1 ? currentMinuteRequests.get() : 0;
+    }
+
+    /**
+     * Forgets warm entries that were never used before their cache entry expired.
+     */
+    public void expireWarm(long routeMaxAgeMs, long geocodeMaxAgeMs) {
+        long now = System.currentTimeMillis();
+        warmRoutes.values().removeIf(warmedAt -> warmedAt < now - routeMaxAgeMs);
+        warmGeocodes.values().removeIf(warmedAt -> warmedAt < now - geocodeMaxAgeMs);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("trackedTrips", trips.size());
+        stats.put("trackedSearches", searches.size());
+        stats.put("routesWarmed", routesWarmed.get());
+        stats.put("routesUsed", routesUsed.get());
+        stats.put("routeHitRate", ratio(routesUsed.get(), routesWarmed.get()));
+        stats.put("geocodesWarmed", geocodesWarmed.get());
+        stats.put("geocodesUsed", geocodesUsed.get());
+        stats.put("geocodeHitRate", ratio(geocodesUsed.get(), geocodesWarmed.get()));
+        return stats;
+    }
+
+    private double ratio(long used, long warmed) {
+        return warmed == 0 ? 0.0 : Math.round(1000.0 * used / warmed) / 1000.0;
+    }
+
+    private void countRequest() {
+        long minute = System.currentTimeMillis() / 60000;
+        long seen = currentMinute.get();
+        if (seen != minute && currentMinute.compareAndSet(seen, minute)) {
+            previousMinuteRequests.set(seen == minute - 1 ? currentMinuteRequests.get() : 0);
+            currentMinuteRequests.set(0);
+        }
+        currentMinuteRequests.incrementAndGet();
+    }
+
+    private String pairOf(String cacheKey, Map<String, Object> origin) {
+        double lat = ((Number) origin.get("lat")).doubleValue();
+        double lng = ((Number) origin.get("lng")).doubleValue();
+        String destination = cacheKey.substring(cacheKey.indexOf('|') + 1);
+        return String.format(Locale.ROOT, "%d,%d|%s",
+                (long) Math.floor(lat / originCellDegrees), (long) Math.floor(lng / originCellDegrees), destination);
+    }
+
+    public record Trip(String cacheKey, Map<String, Object> origin, Map<String, Object> destination, int count) {
+    }
+
+    private static class HourlyCounts {
+        final AtomicIntegerArray counts = new AtomicIntegerArray(24);
+
+        int around(int hour) {
+            return counts.get(hour) + counts.get((hour + 1) % 24);
+        }
+    }
+
+    private static final class TripPattern extends HourlyCounts {
+        private final Map<String, Trip> keys = new HashMap<>();
+
+        synchronized void record(String cacheKey, Map<String, Object> origin, Map<String, Object> destination) {
+            Trip seen = keys.get(cacheKey);
+            if (seen == null && keys.size() >= MAX_KEYS_PER_PAIR) {
+                // Make room by dropping the least used exact start point
+                keys.values().stream()
+                        .min(Comparator.comparingInt(Trip::count))
+                        .ifPresent(rarest -> keys.remove(rarest.cacheKey()));
+            }
+            keys.put(cacheKey, new Trip(cacheKey, origin, destination, seen == null ? 1 : seen.count() + 1));
+        }
+
+        synchronized Trip toTrip(int hour) {
+            return keys.values().stream()
+                    .max(Comparator.comparingInt(Trip::count))
+                    .map(best -> new Trip(best.cacheKey(), best.origin(), best.destination(), around(hour)))
+                    .orElse(null);
+        }
+    }
+}
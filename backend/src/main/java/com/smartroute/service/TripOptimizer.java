@@ -0,0 +1,263 @@
+package com.smartroute.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.IntStream;
+
+/**
+ * Orders the stops of a multi-stop trip over an (asymmetric) duration matrix. Node 0 is the
+ * fixed start; with a fixed end the last node closes the path, and a round trip returns to node 0.
+ *
+ * <p>Each start builds a nearest-neighbour tour seeded with a different first stop and improves
+ * it with 2-opt and Or-opt until no move helps or the time limit is reached. Starts run in
+ * parallel on a fork-join pool and the cheapest tour wins.
+ */
+@Component
+public class TripOptimizer {
+
+    private static final double EPSILON = 1e-9;
+    private static final int MAX_OR_OPT_SEGMENT = 3;
+
+    private final ForkJoinPool pool;
+
+    @Value("${trip-optimizer.max-starts:64}")
+    private int maxStarts;
+
+    public TripOptimizer(@Value("${trip-optimizer.parallelism:0}") int parallelism) {
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Returns the visiting order of all nodes, starting with 0 and, when {@code fixedEnd} is set,
+     * ending with the last node. Never runs much longer than {@code timeLimitMs}.
+     */
+    public Result solve(double[][] durations, boolean fixedEnd, boolean roundTrip, long timeLimitMs) {
+        long started = System.nanoTime();
+        long deadline = started + TimeUnit.MILLISECONDS.toNanos(timeLimitMs);
+        Problem problem = new Problem(durations, fixedEnd && !roundTrip, roundTrip);
+
+        int movable = problem.lastMovable();
+        if (movable < 1) {
+            int[] order = IntStream.range(0, durations.length).toArray();
+            return new Result(order, problem.cost(order), problem.cost(order), 0, elapsedMs(started));
+        }
+
+        int starts = Math.min(movable, maxStarts);
+        ForkJoinTask<List<int[]>> task = pool.submit(() -> IntStream.rangeClosed(1, starts)
+                .parallel()
+                .mapToObj(first -> problem.improve(problem.nearestNeighbour(first), deadline))
+                .toList());
+
+        List<int[]> tours;
+        try {
+            // Workers stop improving at the deadline; the slack covers finishing their last pass
+            tours = task.get(timeLimitMs + 1000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Trip optimization interrupted", e);
+        } catch (ExecutionException | TimeoutException e) {
+            task.cancel(true);
+            throw new IllegalStateException("Trip optimization failed", e);
+        }
+
+        int[] best = tours.stream().min(Comparator.comparingDouble(problem::cost)).orElseThrow();
+        double baseline = problem.cost(problem.nearestNeighbour(0));
+        return new Result(best, problem.cost(best), baseline, starts, elapsedMs(started));
+    }
+
+    private static long elapsedMs(long startedNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos);
+    }
+
+    /**
+     * @param order                  visiting order of the matrix nodes
+     * @param cost                   total duration of that order
+     * @param nearestNeighbourCost   duration of a plain nearest-neighbour order, for comparison
+     * @param starts                 number of nearest-neighbour starts explored
+     * @param solveMs                wall time spent solving
+     */
+    public record Result(int[] order, double cost, double nearestNeighbourCost, int starts, long solveMs) {
+    }
+
+    private static final class Problem {
+        private final double[][] d;
+        private final int n;
+        private final boolean fixedEnd;
+        private final boolean roundTrip;
+
+        private Problem(double[][] durations, boolean fixedEnd, boolean roundTrip) {
+            this.d = durations;
+            this.n = durations.length;
+            this.fixedEnd = fixedEnd;
+            this.roundTrip = roundTrip;
+        }
+
+        // Highest position in the tour that local search may move
+        private int lastMovable() {
+            return fixedEnd ? n - 2 : n - 1;
+        }
+
+        private double cost(int[] tour) {
+            double total = 0;
+            for (int i = 0; i + 1 < tour.length; i++) {
+                total += d[tour[i]][tour[i + 1]];
+            }
+            return roundTrip ? total + d[tour[tour.length - 1]][tour[0]] : total;
+        }
+
+        // Cost of the edge leaving position i, or 0 past the end of an open path
+        private double next(int[] tour, int i) {
+            if (i + 1 < tour.length) {
+                return d[tour[i]][tour[i + 1]];
+            }
+            return roundTrip ? d[tour[i]][tour[0]] : 0;
+        }
+
+        private double edge(int[] tour, int from, int to) {
+            if (to >= tour.length) {
+                return roundTrip ? d[tour[from]][tour[0]] : 0;
+            }
+            return d[tour[from]][tour[to]];
+        }
+
+        /**
+         * Nearest-neighbour tour from node 0 whose first stop is forced to {@code first}
+         * (0 leaves the first stop to the heuristic too).
+         */
+        private int[] nearestNeighbour(int first) {
+            int[] tour = new int[n];
+            boolean[] visited = new boolean[n];
+            visited[0] = true;
+            if (fixedEnd) {
+                tour[n - 1] = n - 1;
+                visited[n - 1] = true;
+            }
+
+            int position = 1;
+            if (first > 0) {
+                tour[position++] = first;
+                visited[first] = true;
+            }
+            for (; position <= lastMovable(); position++) {
+                int current = tour[position - 1];
+                int nearest = -1;
+                for (int candidate = 1; candidate < n; candidate++) {
+                    if (!visited[candidate] && (nearest < 0 || d[current][candidate] < d[current][nearest])) {
+                        nearest = candidate;
+                    }
+                }
+                tour[position] = nearest;
+                visited[nearest] = true;
+            }
+            return tour;
+        }
+
+        private int[] improve(int[] tour, long deadline) {
+            boolean improved = true;
+            while (improved && System.nanoTime() < deadline) {
+                improved = twoOpt(tour, deadline) | orOpt(tour);
+            }
+            return tour;
+        }
+
+        /**
+         * Reverses tour[i..j] when that is cheaper. The matrix is asymmetric, so the reversed
+         * segment is priced with prefix sums of forward and backward edge costs.
+         */
+        private boolean twoOpt(int[] tour, long deadline) {
+            int last = lastMovable();
+            double[] forward = new double[tour.length];
+            double[] backward = new double[tour.length];
+            boolean improvedAny = false;
+            boolean improved = true;
+
+            while (improved && System.nanoTime() < deadline) {
+                improved = false;
+                for (int k = 1; k < tour.length; k++) {
+                    forward[k] = forward[k - 1] + d[tour[k - 1]][tour[k]];
+                    backward[k] = backward[k - 1] + d[tour[k]][tour[k - 1]];
+                }
+
+                search:
+                for (int i = 1; i < last; i++) {
+                    for (int j = i + 1; j <= last; j++) {
+                        double before = d[tour[i - 1]][tour[i]] + (forward[j] - forward[i]) + next(tour, j);
+                        double after = d[tour[i - 1]][tour[j]] + (backward[j] - backward[i]) + edge(tour, i, j + 1);
+                        if (after < before - EPSILON) {
+                            reverse(tour, i, j);
+                            improved = true;
+                            improvedAny = true;
+                            break search;
+                        }
+                    }
+                }
+            }
+            return improvedAny;
+        }
+
+        /**
+         * Moves a run of up to three consecutive stops to the cheapest other position, keeping
+         * its direction. Returns after the first improving move.
+         */
+        private boolean orOpt(int[] tour) {
+            int last = lastMovable();
+            for (int length = 1; length <= MAX_OR_OPT_SEGMENT; length++) {
+                for (int i = 1; i + length - 1 <= last; i++) {
+                    int j = i + length - 1;
+                    double removeGain = d[tour[i - 1]][tour[i]] + next(tour, j) - edge(tour, i - 1, j + 1);
+
+                    // Insert between positions p and p + 1, outside the segment
+                    for (int p = 0; p <= last; p++) {
+                        if (p >= i - 1 && p <= j) {
+                            continue;
+                        }
+                        double insertCost = d[tour[p]][tour[i]] + edge(tour, j, p + 1) - next(tour, p);
+                        if (insertCost < removeGain - EPSILON) {
+                            moveSegment(tour, i, j, p);
+                            return true;
+                        }
+                    }
+                }
+            }
+            return false;
+        }
+
+        private static void reverse(int[] tour, int i, int j) {
+            while (i < j) {
+                int swap = tour[i];
+                tour[i++] = tour[j];
+                tour[j--] = swap;
+            }
+        }
+
+        // Moves tour[i..j] so it follows the node currently at position p
+        private static void moveSegment(int[] tour, int i, int j, int p) {
+            List<Integer> nodes = new ArrayList<>(tour.length);
+            for (int node : tour) {
+                nodes.add(node);
+            }
+            List<Integer> segment = new ArrayList<>(nodes.subList(i, j + 1));
+            int anchor = tour[p];
+            nodes.subList(i, j + 1).clear();
+            nodes.addAll(nodes.indexOf(anchor) + 1, segment);
+            for (int k = 0; k < tour.length; k++) {
+                tour[k] = nodes.get(k);
+            }
+        }
+    }
+}
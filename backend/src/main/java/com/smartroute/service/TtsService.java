@@ -0,0 +1,262 @@
+package com.smartroute.service;
+
+import jakarta.annotation.PostConstruct;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@Service
+public class TtsService {
+
+    private static final Logger log = LoggerFactory.getLogger(TtsService.class);
+
+    @Value("${tts.base-url:http://localhost:5002}")
+    private String ttsBaseUrl;
+
+    @Value("${tts.speaker-id:}")
+    private String speakerId;
+
+    @Value("${tts.cache-dir:${java.io.tmpdir}/smartroute-tts}")
+    private String cacheDir;
+
+    @Value("${tts.prewarm:true}")
+    private boolean prewarm;
+
+    @Value("${tts.max-text-length:500}")
+    private int maxTextLength;
+
+    @Value("${tts.cache-max-bytes:268435456}")
+    private long cacheMaxBytes;
+
+    @Autowired
+    private AssistantService assistantService;
+
+    private final OkHttpClient client = new OkHttpClient.Builder()
+            .connectTimeout(10, TimeUnit.SECONDS)
+            .readTimeout(60, TimeUnit.SECONDS)
+            .writeTimeout(10, TimeUnit.SECONDS)
+            .build();
+
+    // One synthesis per cache key at a time; concurrent callers wait for the same result
+    private final Map<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+
+    // Sizes of the cached files, least recently used first; guarded by itself
+    private final LinkedHashMap<String, Long> cached = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+
+    @PostConstruct
+    public void loadCache() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(cacheRoot())) {
+            files = listing.filter(file -> file.getFileName().toString().endsWith(".wav"))
+                    .sorted(Comparator.comparingLong(file -> file.toFile().lastModified()))
+                    .toList();
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            record(name.substring(0, name.length() - ".wav".length()), file.toFile().length());
+        }
+    }
+
+    /**
+     * Returns the cached audio file for the given text, synthesizing it through the
+     * configured TTS server on a cache miss. Files are content-addressed, so identical
+     * prompts are only synthesized once while they stay in the cache, which keeps at most
+     * {@code tts.cache-max-bytes} of audio and drops the least recently used files first.
+     *
+     * @throws IllegalArgumentException if the text is longer than {@code tts.max-text-length}
+     */
+    public Path synthesize(String text, String language) throws IOException {
+        if (text.length() > maxTextLength) {
+            throw new IllegalArgumentException("Text must be at most " + maxTextLength + " characters");
+        }
+        String key = cacheKey(text, language);
+        Path target = cacheRoot().resolve(key + ".wav");
+        if (isCached(key, target)) {
+            return target;
+        }
+
+        CompletableFuture<Path> pending = new CompletableFuture<>();
+        CompletableFuture<Path> existing = inFlight.putIfAbsent(key, pending);
+        if (existing != null) {
+            return await(existing);
+        }
+
+        try {
+            if (!isCached(key, target)) {
+                download(text, language, target);
+                record(key, Files.size(target));
+            }
+            pending.complete(target);
+            return target;
+        } catch (IOException | RuntimeException e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, pending);
+        }
+    }
+
+    /**
+     * Opens the audio for the given text for reading, synthesizing it first on a cache miss.
+     * The open channel stays readable even if a concurrent miss evicts the entry meanwhile.
+     */
+    public FileChannel openAudio(String text, String language) throws IOException {
+        for (int attempt = 0; ; attempt++) {
+            Path audio = synthesize(text, language);
+            try {
+                return FileChannel.open(audio, StandardOpenOption.READ);
+            } catch (NoSuchFileException e) {
+                // Evicted between synthesis and opening; synthesizing again brings it back
+                if (attempt > 0) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    public String cacheKey(String text, String language) {
+        String material = languageId(language) + "\n" + speakerId + "\n" + text.trim();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(material.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void prewarmNavigationPhrases() {
+        if (!prewarm) {
+            return;
+        }
+        try {
+            for (Map.Entry<String, String> phrase : assistantService.getNavigationPhrases().entrySet()) {
+                synthesize(phrase.getKey(), "en-US");
+                synthesize(phrase.getValue(), "te-IN");
+            }
+        } catch (IOException e) {
+            // TTS server not reachable yet; phrases will be cached on first use instead
+            log.warn("Skipping TTS pre-warm: {}", e.getMessage());
+        }
+    }
+
+    private void download(String text, String language, Path target) throws IOException {
+        HttpUrl.Builder url = HttpUrl.get(ttsBaseUrl + "/api/tts").newBuilder()
+                .addQueryParameter("text", text)
+                .addQueryParameter("language_id", languageId(language));
+        if (!speakerId.isEmpty()) {
+            url.addQueryParameter("speaker_id", speakerId);
+        }
+
+        Request request = new Request.Builder()
+                .url(url.build())
+                .get()
+                .build();
+
+        try (Response response = client.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                throw new IOException("TTS server request failed: " + response.code());
+            }
+
+            // Write to a temp file first so readers never observe a partially written entry
+            Path temp = Files.createTempFile(target.getParent(), "tts-", ".part");
+            try (InputStream body = response.body().byteStream()) {
+                Files.copy(body, temp, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    private boolean isCached(String key, Path target) {
+        synchronized (cached) {
+            return cached.get(key) != null && Files.exists(target);
+        }
+    }
+
+    private void record(String key, long size) throws IOException {
+        List<String> evicted = new ArrayList<>();
+        synchronized (cached) {
+            Long previous = cached.put(key, size);
+            cachedBytes += size - (previous != null ? previous : 0);
+            Iterator<Map.Entry<String, Long>> eldest = cached.entrySet().iterator();
+            // Never evict the entry just added, even if it alone exceeds the limit
+            while (cachedBytes > cacheMaxBytes && cached.size() > 1) {
+                Map.Entry<String, Long> entry = eldest.next();
+                cachedBytes -= entry.getValue();
+                evicted.add(entry.getKey());
+                eldest.remove();
+            }
+        }
+        for (String evictedKey : evicted) {
+            try {
+                Files.deleteIfExists(cacheRoot().resolve(evictedKey + ".wav"));
+            } catch (IOException e) {
+                // Still open for a response on a platform that forbids deleting open files
+                log.warn("Could not delete evicted TTS file {}: {}", evictedKey, e.getMessage());
+            }
+        }
+    }
+
+    private Path cacheRoot() throws IOException {
+        return Files.createDirectories(Paths.get(cacheDir));
+    }
+
+    private String languageId(String language) {
+        if (language == null || language.isEmpty()) {
+            return "en";
+        }
+        return language.split("-")[0].toLowerCase();
+    }
+
+    private Path await(CompletableFuture<Path> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for speech synthesis", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Speech synthesis failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+}
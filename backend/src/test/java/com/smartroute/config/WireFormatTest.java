@@ -0,0 +1,37 @@
+package com.smartroute.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WireFormatTest {
+
+    @Test
+    void gzipIsOnlyUsedWhenTheClientAcceptsIt() {
+        assertTrue(WireFormat.acceptsGzip("gzip"));
+        assertTrue(WireFormat.acceptsGzip("br, gzip;q=0.5, deflate"));
+        assertTrue(WireFormat.acceptsGzip("GZIP ; Q=1"));
+        assertTrue(WireFormat.acceptsGzip("x-gzip"));
+        assertTrue(WireFormat.acceptsGzip("*"));
+
+        assertFalse(WireFormat.acceptsGzip(null));
+        assertFalse(WireFormat.acceptsGzip(""));
+        assertFalse(WireFormat.acceptsGzip("identity"));
+        assertFalse(WireFormat.acceptsGzip("gzip;q=0"));
+        assertFalse(WireFormat.acceptsGzip("gzip;q=0.000"));
+        assertFalse(WireFormat.acceptsGzip("gzip;q=abc"));
+        assertFalse(WireFormat.acceptsGzip("*, gzip;q=0"));
+        assertFalse(WireFormat.acceptsGzip("*;q=0"));
+        assertFalse(WireFormat.acceptsGzip("gzipped, notgzip"));
+    }
+
+    @Test
+    void negotiatesByAcceptHeader() {
+        assertEquals(WireFormat.JSON, WireFormat.negotiate(null));
+        assertEquals(WireFormat.CBOR, WireFormat.negotiate("application/cbor, application/json;q=0.5"));
+        assertEquals(WireFormat.SMILE, WireFormat.negotiate("application/x-jackson-smile"));
+        assertEquals(WireFormat.JSON, WireFormat.negotiate("text/html"));
+    }
+}
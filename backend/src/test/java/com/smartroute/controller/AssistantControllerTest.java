@@ -0,0 +1,92 @@
+package com.smartroute.controller;
+
+import com.smartroute.service.AssistantService;
+import com.smartroute.service.OllamaPool;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class AssistantControllerTest {
+
+    private MockWebServer ollama;
+    private OllamaPool ollamaPool;
+    private MockMvc mockMvc;
+    private final List<Map<String, Object>> contexts = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ollama = new MockWebServer();
+        ollama.start();
+        ollamaPool = new OllamaPool(ollama.url("/").toString(), 1000);
+
+        // Records the context each command is handled with
+        AssistantService assistantService = new AssistantService() {
+            @Override
+            public String processCommand(String command, Map<String, Object> context) {
+                contexts.add(context);
+                return "ok";
+            }
+        };
+
+        AssistantController controller = new AssistantController();
+        ReflectionTestUtils.setField(controller, "ollamaPool", ollamaPool);
+        ReflectionTestUtils.setField(controller, "assistantService", assistantService);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        ollama.shutdown();
+    }
+
+    @Test
+    void healthIs503WhenNoOllamaInstanceIsUp() throws Exception {
+        ollama.enqueue(new MockResponse().setResponseCode(500));
+        ollamaPool.probeInstances();
+
+        mockMvc.perform(post("/api/assistant/health"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.status").value("unavailable"));
+    }
+
+    @Test
+    void healthIs200WhenAnInstanceAnswersItsProbe() throws Exception {
+        ollama.enqueue(new MockResponse().setBody("{\"models\":[{\"name\":\"llama3:latest\"}]}"));
+        ollama.enqueue(new MockResponse().setBody("{\"models\":[]}"));
+        ollamaPool.probeInstances();
+
+        mockMvc.perform(post("/api/assistant/health"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("healthy"));
+    }
+
+    @Test
+    void topLevelLocationIsPassedInTheContext() throws Exception {
+        mockMvc.perform(post("/api/assistant/process")
+                        .contentType("application/json")
+                        .content("{\"command\":\"weather\",\"location\":{\"lat\":17.4,\"lng\":78.5},\"context\":{\"navigationMode\":true}}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/assistant/process")
+                        .contentType("application/json")
+                        .content("{\"command\":\"weather\",\"location\":{\"lat\":17.4,\"lng\":78.5}}"))
+                .andExpect(status().isOk());
+
+        assertEquals(Map.of("navigationMode", true, "location", Map.of("lat", 17.4, "lng", 78.5)), contexts.get(0));
+        assertEquals(Map.of("location", Map.of("lat", 17.4, "lng", 78.5)), contexts.get(1));
+    }
+}
@@ -0,0 +1,62 @@
+package com.smartroute.controller;
+
+import com.smartroute.service.NavigationService;
+import com.smartroute.service.PlaceAutocompleteIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class NavigationControllerTest {
+
+    private final List<String> lookups = new ArrayList<>();
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        PlaceAutocompleteIndex emptyIndex = new PlaceAutocompleteIndex();
+
+        // Records which geocoding entry point the fallback used
+        NavigationService navigationService = new NavigationService() {
+            @Override
+            public Map<String, Object> geocode(String query) {
+                lookups.add("geocode:" + query);
+                return Map.of("places", List.of(Map.of("name", "Shamshabad Airport")), "status", "OK");
+            }
+
+            @Override
+            public Map<String, Object> lookupGeocode(String query) {
+                lookups.add("lookup:" + query);
+                return Map.of("places", List.of(), "status", "OK");
+            }
+        };
+
+        NavigationController controller = new NavigationController();
+        ReflectionTestUtils.setField(controller, "placeAutocompleteIndex", emptyIndex);
+        ReflectionTestUtils.setField(controller, "navigationService", navigationService);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void autocompleteFallsBackToGeocodingAndRecordsOnlySubmittedSearches() throws Exception {
+        mockMvc.perform(get("/api/navigation/autocomplete").param("query", "shams"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.source").value("geocode"));
+        mockMvc.perform(get("/api/navigation/autocomplete").param("query", "shamshabad airport").param("submitted", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.source").value("geocode"))
+                .andExpect(jsonPath("$.places[0].name").value("Shamshabad Airport"));
+
+        assertEquals(List.of("lookup:shams", "geocode:shamshabad airport"), lookups);
+    }
+}
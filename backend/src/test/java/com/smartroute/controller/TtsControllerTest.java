@@ -0,0 +1,90 @@
+package com.smartroute.controller;
+
+import com.smartroute.service.TtsService;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class TtsControllerTest {
+
+    @TempDir
+    Path cacheDir;
+
+    private MockWebServer tts;
+    private TtsService ttsService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        tts = new MockWebServer();
+        tts.start();
+
+        ttsService = new TtsService();
+        ReflectionTestUtils.setField(ttsService, "ttsBaseUrl", tts.url("").toString().replaceAll("/$", ""));
+        ReflectionTestUtils.setField(ttsService, "speakerId", "");
+        ReflectionTestUtils.setField(ttsService, "cacheDir", cacheDir.toString());
+        ReflectionTestUtils.setField(ttsService, "maxTextLength", 500);
+        ReflectionTestUtils.setField(ttsService, "cacheMaxBytes", 1_000_000L);
+        ttsService.loadCache();
+
+        TtsController controller = new TtsController();
+        ReflectionTestUtils.setField(controller, "ttsService", ttsService);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        tts.shutdown();
+    }
+
+    @Test
+    void cacheHitIsServedWithoutContactingTheTtsServer() throws Exception {
+        tts.enqueue(new MockResponse().setBody("RIFF-audio"));
+
+        mockMvc.perform(get("/api/tts/speak").param("text", "Turn right"))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes("RIFF-audio".getBytes()));
+        mockMvc.perform(get("/api/tts/speak").param("text", "Turn right"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "audio/wav"))
+                .andExpect(content().bytes("RIFF-audio".getBytes()));
+
+        assertEquals(1, tts.getRequestCount());
+    }
+
+    @Test
+    void matchingEtagGets304() throws Exception {
+        tts.enqueue(new MockResponse().setBody("RIFF-audio"));
+        String etag = mockMvc.perform(get("/api/tts/speak").param("text", "Turn right"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/tts/speak").param("text", "Turn right").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().bytes(new byte[0]));
+        assertEquals(1, tts.getRequestCount());
+    }
+
+    @Test
+    void overlongTextIsRejected() throws Exception {
+        mockMvc.perform(get("/api/tts/speak").param("text", "x".repeat(501)))
+                .andExpect(status().isBadRequest());
+        assertEquals(0, tts.getRequestCount());
+    }
+}
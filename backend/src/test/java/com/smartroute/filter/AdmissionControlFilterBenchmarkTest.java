@@ -0,0 +1,133 @@
+package com.smartroute.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * Cost of the admission filter per request, including body buffering and the command lookup on
+ * {@code /process}. Requests are built before each timed batch so only the filter is measured.
+ * Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class AdmissionControlFilterBenchmarkTest {
+
+    private static final int BATCH = 1_000;
+    private static final int WARMUP_BATCHES = 200;
+    private static final int BATCHES = 1_000;
+
+    private static final FilterChain NOOP_CHAIN = (request, response) -> {
+    };
+
+    @Test
+    void filterPath() throws Exception {
+        AdmissionControlFilter filter = new AdmissionControlFilter(
+                Double.MAX_VALUE, 1, Double.MAX_VALUE, 1, 100_000, "", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "trustedProxyHops", 1);
+        ReflectionTestUtils.setField(filter, "maxCommandBytes", 4096);
+
+        // What the voice assistant sends while navigating: the command, then the whole route
+        String route = "[" + "{\"lat\":17.38512,\"lng\":78.48671},".repeat(1499) + "{\"lat\":17.4,\"lng\":78.5}]";
+        String navigating = "{\"command\":\"what time is it\",\"location\":{\"lat\":17.385,\"lng\":78.486},"
+                + "\"context\":{\"navigationMode\":true,\"currentRoute\":{\"geometry\":" + route + "}}}";
+
+        measure("GET, known client", filter, i -> AdmissionControlFilterTest.get("/api/navigation/health"));
+        byte[] smallBody = "{\"command\":\"what time is it\",\"context\":{}}".getBytes(StandardCharsets.UTF_8);
+        measure("POST /process, small body", filter, i -> process(smallBody));
+        byte[] navigatingBody = navigating.getBytes(StandardCharsets.UTF_8);
+        measure("POST /process, 1500-point route", filter, i -> process(navigatingBody));
+        measure("GET, new client each request", filter, i -> {
+            MockHttpServletRequest request = AdmissionControlFilterTest.get("/api/navigation/health");
+            request.setRemoteAddr("10." + (i >> 16 & 255) + "." + (i >> 8 & 255) + "." + (i & 255));
+            return request;
+        });
+    }
+
+    /**
+     * A {@code /process} request over a shared body array, so building requests does not churn
+     * the heap being timed. Its stream reads in bulk like Tomcat's; the mock's own stream copies
+     * one byte at a time through a synchronized call and would dominate the measurement.
+     */
+    private static MockHttpServletRequest process(byte[] body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/assistant/process") {
+            private final ByteArrayInputStream input = new ByteArrayInputStream(body);
+
+            @Override
+            public ServletInputStream getInputStream() {
+                return new ServletInputStream() {
+                    @Override
+                    public boolean isFinished() {
+                        return input.available() == 0;
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return true;
+                    }
+
+                    @Override
+                    public void setReadListener(ReadListener readListener) {
+                        throw new UnsupportedOperationException();
+                    }
+
+                    @Override
+                    public int read() {
+                        return input.read();
+                    }
+
+                    @Override
+                    public int read(byte[] b, int off, int len) {
+                        return input.read(b, off, len);
+                    }
+                };
+            }
+
+            @Override
+            public long getContentLengthLong() {
+                return body.length;
+            }
+        };
+        request.setRemoteAddr("10.0.0.1");
+        request.setContentType("application/json");
+        return request;
+    }
+
+    private static void measure(String name, AdmissionControlFilter filter, IntFunction<MockHttpServletRequest> requests)
+            throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockHttpServletRequest[] batch = new MockHttpServletRequest[BATCH];
+        long[] batchNanos = new long[BATCHES];
+        int next = 0;
+        for (int b = 0; b < WARMUP_BATCHES + BATCHES; b++) {
+            for (int i = 0; i < BATCH; i++) {
+                batch[i] = requests.apply(next++);
+            }
+            long started = System.nanoTime();
+            for (MockHttpServletRequest request : batch) {
+                filter.doFilter(request, response, NOOP_CHAIN);
+            }
+            if (b >= WARMUP_BATCHES) {
+                batchNanos[b - WARMUP_BATCHES] = System.nanoTime() - started;
+            }
+        }
+        if (response.getStatus() != 200) {
+            throw new IllegalStateException(name + " was rejected");
+        }
+        // Median and p90 over batches, so a GC pause landing in one batch does not skew the result
+        Arrays.sort(batchNanos);
+        System.out.printf("%-34s %6.0f ns/request median, %6.0f p90%n", name,
+                batchNanos[BATCHES / 2] / (double) BATCH, batchNanos[BATCHES * 9 / 10] / (double) BATCH);
+    }
+}
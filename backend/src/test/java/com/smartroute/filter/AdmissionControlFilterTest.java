@@ -0,0 +1,154 @@
+package com.smartroute.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class AdmissionControlFilterTest {
+
+    private AdmissionControlFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new AdmissionControlFilter(20, 5, 300, 5, 1000, "fleet-key", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(filter, "enabled", true);
+        ReflectionTestUtils.setField(filter, "trustedProxyHops", 1);
+        ReflectionTestUtils.setField(filter, "maxCommandBytes", 4096);
+    }
+
+    @Test
+    void rotatingUnknownApiKeysDoesNotBypassTheLimit() throws Exception {
+        int admitted = 0;
+        for (int i = 0; i < 10; i++) {
+            MockHttpServletRequest request = get("/api/navigation/health");
+            request.addHeader("X-API-Key", "random-" + i);
+            if (run(request).getStatus() == 200) {
+                admitted++;
+            }
+        }
+        assertEquals(5, admitted);
+    }
+
+    @Test
+    void configuredApiKeyGetsItsOwnBudget() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            run(get("/api/navigation/health"));
+        }
+        assertEquals(429, run(get("/api/navigation/health")).getStatus());
+
+        MockHttpServletRequest keyed = get("/api/navigation/health");
+        keyed.addHeader("X-API-Key", "fleet-key");
+        assertEquals(200, run(keyed).getStatus());
+    }
+
+    @Test
+    void llmCommandsDrawFromTheSmallerBudgetAndGetRetryAfter() throws Exception {
+        int admitted = 0;
+        MockHttpServletResponse last = null;
+        for (int i = 0; i < 8; i++) {
+            last = run(process("tell me a story about hyderabad"));
+            if (last.getStatus() == 200) {
+                admitted++;
+            }
+        }
+        assertEquals(5, admitted);
+        assertEquals(429, last.getStatus());
+        assertNotNull(last.getHeader("Retry-After"));
+
+        // Cheap commands still have their own budget
+        assertEquals(200, run(process("what time is it")).getStatus());
+    }
+
+    @Test
+    void onlyTheAddressAddedByTheTrustedProxyIdentifiesTheClient() throws Exception {
+        ReflectionTestUtils.setField(filter, "trustForwardedFor", true);
+        int admitted = 0;
+        for (int i = 0; i < 10; i++) {
+            MockHttpServletRequest request = get("/api/navigation/health");
+            request.addHeader("X-Forwarded-For", "198.51.100." + i + ", 203.0.113.7");
+            if (run(request).getStatus() == 200) {
+                admitted++;
+            }
+        }
+        assertEquals(5, admitted);
+
+        MockHttpServletRequest other = get("/api/navigation/health");
+        other.addHeader("X-Forwarded-For", "203.0.113.8");
+        assertEquals(200, run(other).getStatus());
+    }
+
+    @Test
+    void clientWithoutBudgetIsRejectedBeforeItsBodyIsRead() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            run(process("tell me a story"));
+            run(get("/api/navigation/health"));
+        }
+
+        MockHttpServletRequest unreadable = new MockHttpServletRequest("POST", "/api/assistant/process") {
+            @Override
+            public jakarta.servlet.ServletInputStream getInputStream() {
+                throw new AssertionError("body must not be read");
+            }
+        };
+        unreadable.setRemoteAddr("10.0.0.1");
+        MockHttpServletResponse response = run(unreadable);
+
+        assertEquals(429, response.getStatus());
+        assertNotNull(response.getHeader("Retry-After"));
+    }
+
+    @Test
+    void commandPastTheBufferLimitIsRejectedWith413() throws Exception {
+        String route = "[" + "{\"lat\":17.385,\"lng\":78.486},".repeat(500) + "{}]";
+        MockHttpServletRequest request = body("{\"context\":{\"currentRoute\":" + route + "},\"command\":\"hi\"}");
+
+        assertEquals(413, run(request).getStatus());
+    }
+
+    @Test
+    void largeContextAfterTheCommandReachesTheControllerIntact() throws Exception {
+        String route = "[" + "{\"lat\":17.385,\"lng\":78.486},".repeat(500) + "{}]";
+        String json = "{\"command\":\"what time is it\",\"context\":{\"currentRoute\":" + route + "}}";
+        MockFilterChain chain = new MockFilterChain();
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(body(json), response, chain);
+
+        assertEquals(200, response.getStatus());
+        byte[] forwarded = chain.getRequest().getInputStream().readAllBytes();
+        assertEquals(json, new String(forwarded, StandardCharsets.UTF_8));
+    }
+
+    private MockHttpServletResponse run(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    static MockHttpServletRequest get(String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setRemoteAddr("10.0.0.1");
+        return request;
+    }
+
+    static MockHttpServletRequest process(String command) {
+        return body("{\"command\":\"" + command + "\",\"context\":{}}");
+    }
+
+    static MockHttpServletRequest body(String json) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/assistant/process");
+        request.setRemoteAddr("10.0.0.1");
+        request.setContentType("application/json");
+        request.setContent(json.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
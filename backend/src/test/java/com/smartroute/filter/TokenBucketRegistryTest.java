@@ -0,0 +1,67 @@
+package com.smartroute.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketRegistryTest {
+
+    @Test
+    void admitsTheBurstThenRejectsUntilAPermitIsEmitted() {
+        TokenBucketRegistry registry = new TokenBucketRegistry(60, 3, 100);
+        long now = System.nanoTime();
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, registry.tryAcquire("client", now));
+        }
+        long wait = registry.tryAcquire("client", now);
+        assertTrue(wait > 0 && wait <= TimeUnit.SECONDS.toNanos(1));
+        assertEquals(0, registry.tryAcquire("client", now + wait));
+    }
+
+    @Test
+    void neverTracksMoreClientsThanTheCap() {
+        TokenBucketRegistry registry = new TokenBucketRegistry(60, 1, 1000);
+        long now = System.nanoTime();
+
+        for (int i = 0; i < 50_000; i++) {
+            registry.tryAcquire("client-" + i, now);
+        }
+        assertEquals(1000, registry.size());
+    }
+
+    @Test
+    void clientsPastTheCapShareOverflowBuckets() {
+        TokenBucketRegistry registry = new TokenBucketRegistry(60, 1, 10);
+        long now = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            registry.tryAcquire("client-" + i, now);
+        }
+
+        // 64 overflow buckets with a burst of one: a flood of new keys gets at most 64 permits
+        int admitted = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (registry.tryAcquire("new-" + i, now) == 0) {
+                admitted++;
+            }
+        }
+        assertTrue(admitted <= 64, "admitted " + admitted);
+    }
+
+    @Test
+    void idleBucketsAreRecycledOnceTheSweepIsDue() {
+        TokenBucketRegistry registry = new TokenBucketRegistry(60, 1, 10);
+        long now = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            registry.tryAcquire("client-" + i, now);
+        }
+
+        // All ten buckets are full again after a minute, so a new client gets its own slot
+        long later = now + TimeUnit.MINUTES.toNanos(1) + TokenBucketRegistry.SWEEP_INTERVAL_NANOS;
+        assertEquals(0, registry.tryAcquire("fresh", later));
+        assertEquals(1, registry.size());
+    }
+}
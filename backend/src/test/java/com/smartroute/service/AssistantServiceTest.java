@@ -0,0 +1,97 @@
+package com.smartroute.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AssistantServiceTest {
+
+    private static final Map<String, Object> NAVIGATING = Map.of("navigationMode", true);
+
+    private final List<LlmScheduler.Priority> submitted = new ArrayList<>();
+    private final List<Map<String, Object>> routeWeatherLocations = new ArrayList<>();
+    private AssistantService assistantService;
+
+    @BeforeEach
+    void setUp() {
+        // Records what would have gone to Ollama instead of calling it
+        LlmScheduler scheduler = new LlmScheduler() {
+            @Override
+            public String submit(Priority priority, Callable<String> task) {
+                submitted.add(priority);
+                return "llm";
+            }
+        };
+        // Records the position route weather was asked for instead of calling OpenWeatherMap
+        RouteWeatherService routeWeather = new RouteWeatherService(1) {
+            @Override
+            public String summarizeAlongRoute(List<Map<String, Object>> geometry, Map<String, Object> currentLocation) {
+                routeWeatherLocations.add(currentLocation);
+                return "route weather";
+            }
+        };
+        assistantService = new AssistantService();
+        ReflectionTestUtils.setField(assistantService, "llmScheduler", scheduler);
+        ReflectionTestUtils.setField(assistantService, "routeWeatherService", routeWeather);
+        ReflectionTestUtils.setField(assistantService, "routeVersionStore", new RouteVersionStore(10));
+    }
+
+    @Test
+    void keywordsMatchWholeWordsOnly() throws Exception {
+        for (String command : List.of("explain the beta release", "tell me about broadway", "name a planet", "sometimes I wonder")) {
+            assertEquals("llm", assistantService.processCommand(command, NAVIGATING));
+        }
+        assertEquals(List.of(LlmScheduler.Priority.GENERAL, LlmScheduler.Priority.GENERAL,
+                LlmScheduler.Priority.GENERAL, LlmScheduler.Priority.GENERAL), submitted);
+    }
+
+    @Test
+    void navigationQuestionsJumpTheQueueOnlyWhileNavigating() throws Exception {
+        assistantService.processCommand("what is my ETA?", NAVIGATING);
+        assistantService.processCommand("Are there tolls on this road", NAVIGATING);
+        assistantService.processCommand("what is my eta", Map.of());
+
+        assertEquals(List.of(LlmScheduler.Priority.NAVIGATION, LlmScheduler.Priority.NAVIGATION,
+                LlmScheduler.Priority.GENERAL), submitted);
+    }
+
+    @Test
+    void admissionAndDispatchAgreeOnLocalIntents() throws Exception {
+        for (String command : List.of("Take me to Charminar", "stop", "Cancel navigation", "what time is it",
+                "మార్గంలో ఏముంది", "please navigate to the airport")) {
+            assertFalse(AssistantService.requiresLlm(command), command);
+            assistantService.processCommand(command, Map.of());
+        }
+        for (String command : List.of("tell me a joke", "is it a nonstop flight", "set a timer")) {
+            assertTrue(AssistantService.requiresLlm(command), command);
+            assistantService.processCommand(command, Map.of());
+        }
+        // Only the three commands admitted as LLM-backed reached the scheduler
+        assertEquals(3, submitted.size());
+        assertFalse(AssistantService.requiresLlm(null));
+    }
+
+    @Test
+    void rainQuestionsOnAnActiveRouteAreAnsweredAlongTheRoute() throws Exception {
+        Map<String, Object> location = Map.of("lat", 17.40, "lng", 78.48);
+        Map<String, Object> onRoute = Map.of(
+                "location", location,
+                "currentRoute", Map.of("geometry", List.of(Map.of("lat", 17.38, "lng", 78.48), Map.of("lat", 17.50, "lng", 78.48))));
+
+        for (String command : List.of("Will it rain on the way?", "is it raining ahead", "what's the forecast along the route")) {
+            assertFalse(AssistantService.requiresLlm(command), command);
+            assertEquals("route weather", assistantService.processCommand(command, onRoute), command);
+        }
+        assertEquals(List.of(location, location, location), routeWeatherLocations);
+        assertTrue(submitted.isEmpty());
+    }
+}
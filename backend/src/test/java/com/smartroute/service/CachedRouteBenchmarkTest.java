@@ -0,0 +1,86 @@
+package com.smartroute.service;
+
+import com.smartroute.config.WireFormat;
+import com.smartroute.dto.RouteResponse;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Encode time and bytes on the wire for each route encoding, plain and gzipped, on a synthetic
+ * cross-city route. Each timing is a cold encode of a fresh {@link CachedRoute}; repeat requests
+ * are served from the cached bytes. Run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class CachedRouteBenchmarkTest {
+
+    private static final int WARMUP = 500;
+    private static final int ITERATIONS = 2000;
+
+    @Test
+    void encodings() {
+        RouteResponse route = route(1500, 40);
+
+        System.out.printf("%-6s %12s %12s %14s %14s%n", "format", "plain bytes", "gzip bytes", "plain us", "gzip us");
+        for (WireFormat format : WireFormat.values()) {
+            time(route, format, false, WARMUP);
+            time(route, format, true, WARMUP);
+            double plainMicros = time(route, format, false, ITERATIONS);
+            double gzipMicros = time(route, format, true, ITERATIONS);
+
+            CachedRoute cached = new CachedRoute(route, Long.MAX_VALUE, 0);
+            System.out.printf("%-6s %12d %12d %14.1f %14.1f%n", format, cached.encode(format).length,
+                    cached.encodeGzipped(format).length, plainMicros, gzipMicros);
+        }
+    }
+
+    private static double time(RouteResponse route, WireFormat format, boolean gzip, int iterations) {
+        long sink = 0;
+        long started = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            CachedRoute cached = new CachedRoute(route, Long.MAX_VALUE, 0);
+            sink += (gzip ? cached.encodeGzipped(format) : cached.encode(format)).length;
+        }
+        double micros = (System.nanoTime() - started) / 1000.0 / iterations;
+        if (sink == 0) {
+            throw new IllegalStateException();
+        }
+        return micros;
+    }
+
+    // A meandering route of the given size with typical OpenRouteService step fields
+    private static RouteResponse route(int points, int steps) {
+        Random random = new Random(42);
+        List<Map<String, Object>> geometry = new ArrayList<>();
+        double lat = 17.385;
+        double lng = 78.4867;
+        for (int i = 0; i < points; i++) {
+            lat += (random.nextDouble() - 0.3) * 0.0004;
+            lng += (random.nextDouble() - 0.3) * 0.0004;
+            Map<String, Object> point = new HashMap<>();
+            point.put("lat", lat);
+            point.put("lng", lng);
+            geometry.add(point);
+        }
+        List<Map<String, Object>> stepList = new ArrayList<>();
+        for (int i = 0; i < steps; i++) {
+            Map<String, Object> step = new HashMap<>();
+            step.put("instruction", (i % 2 == 0 ? "Turn left onto " : "Turn right onto ") + "Road " + random.nextInt(500));
+            step.put("distance", random.nextInt(2000) + " m");
+            step.put("duration", random.nextInt(10) + " mins");
+            stepList.add(step);
+        }
+        RouteResponse route = new RouteResponse();
+        route.setGeometry(geometry);
+        route.setSteps(stepList);
+        route.setDuration("48 mins");
+        route.setDistance("21.4 km");
+        route.setVersion("0123456789abcdef");
+        return route;
+    }
+}
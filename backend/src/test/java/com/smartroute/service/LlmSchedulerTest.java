@@ -0,0 +1,123 @@
+package com.smartroute.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LlmSchedulerTest {
+
+    private OllamaPool ollamaPool;
+    private LlmScheduler scheduler;
+    private final List<String> started = new CopyOnWriteArrayList<>();
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+
+    @BeforeEach
+    void setUp() {
+        ollamaPool = new OllamaPool("http://ollama-1:11434,http://ollama-2:11434", 1000);
+        ReflectionTestUtils.setField(ollamaPool, "maxConcurrency", 1);
+
+        scheduler = new LlmScheduler();
+        ReflectionTestUtils.setField(scheduler, "maxConcurrency", 1);
+        ReflectionTestUtils.setField(scheduler, "queueCapacity", 8);
+        ReflectionTestUtils.setField(scheduler, "queueTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(scheduler, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(scheduler, "ollamaPool", ollamaPool);
+        scheduler.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.stop();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void navigationTakesTheNextFreeSlotWhenAnInstanceIsDown() throws Exception {
+        List<?> instances = (List<?>) ReflectionTestUtils.getField(ollamaPool, "instances");
+        ReflectionTestUtils.setField(instances.get(1), "healthy", false);
+        assertEquals(1, ollamaPool.capacity());
+
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> blocker = submit(LlmScheduler.Priority.GENERAL, "blocker", () -> {
+            running.countDown();
+            release.await();
+        });
+        assertTrue(running.await(2, TimeUnit.SECONDS));
+
+        CompletableFuture<String> chat = submit(LlmScheduler.Priority.GENERAL, "chat", () -> { });
+        waitForQueued(1);
+        CompletableFuture<String> navigation = submit(LlmScheduler.Priority.NAVIGATION, "navigation", () -> { });
+        waitForQueued(2);
+
+        // Nothing may leave the queue while the only live instance is busy
+        Thread.sleep(100);
+        assertEquals(List.of("blocker"), started);
+
+        release.countDown();
+        assertEquals("blocker", blocker.get(2, TimeUnit.SECONDS));
+        assertEquals("navigation", navigation.get(2, TimeUnit.SECONDS));
+        assertEquals("chat", chat.get(2, TimeUnit.SECONDS));
+        assertEquals(List.of("blocker", "navigation", "chat"), started);
+    }
+
+    @Test
+    void everyAvailableInstanceGetsItsShareOfJobs() throws Exception {
+        assertEquals(2, ollamaPool.capacity());
+
+        CountDownLatch running = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> first = submit(LlmScheduler.Priority.GENERAL, "first", () -> {
+            running.countDown();
+            release.await();
+        });
+        CompletableFuture<String> second = submit(LlmScheduler.Priority.GENERAL, "second", () -> {
+            running.countDown();
+            release.await();
+        });
+
+        assertTrue(running.await(2, TimeUnit.SECONDS));
+        release.countDown();
+        assertEquals("first", first.get(2, TimeUnit.SECONDS));
+        assertEquals("second", second.get(2, TimeUnit.SECONDS));
+    }
+
+    private CompletableFuture<String> submit(LlmScheduler.Priority priority, String name, Body body) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return scheduler.submit(priority, () -> {
+                    started.add(name);
+                    body.run();
+                    return name;
+                });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }, callers);
+    }
+
+    private void waitForQueued(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while ((int) scheduler.getStats().get("queued") < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, scheduler.getStats().get("queued"));
+    }
+
+    private interface Body {
+        void run() throws Exception;
+    }
+}
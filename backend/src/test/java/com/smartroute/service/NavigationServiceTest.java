@@ -0,0 +1,96 @@
+package com.smartroute.service;
+
+import com.smartroute.dto.MultiStopRequest;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class NavigationServiceTest {
+
+    private MockWebServer openRoute;
+    private NavigationService navigationService;
+    private final List<Long> solverLimits = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        openRoute = new MockWebServer();
+        openRoute.start();
+
+        // Records the time limit handed to the solver and stops the request there
+        TripOptimizer recordingOptimizer = new TripOptimizer(1) {
+            @Override
+            public Result solve(double[][] durations, boolean fixedEnd, boolean roundTrip, long timeLimitMs) {
+                solverLimits.add(timeLimitMs);
+                throw new IllegalStateException("stop here");
+            }
+        };
+
+        navigationService = new NavigationService();
+        ReflectionTestUtils.setField(navigationService, "baseUrl", openRoute.url("").toString());
+        ReflectionTestUtils.setField(navigationService, "openRouteApiKey", "test");
+        ReflectionTestUtils.setField(navigationService, "tripOptimizer", recordingOptimizer);
+        ReflectionTestUtils.setField(navigationService, "maxStops", 50);
+        ReflectionTestUtils.setField(navigationService, "maxTimeLimitMs", 2000L);
+        ReflectionTestUtils.setField(navigationService, "fallbackSpeedKmh", 30.0);
+        ReflectionTestUtils.setField(navigationService, "geocodingUrl", openRoute.url("/geocode/search").toString());
+        ReflectionTestUtils.setField(navigationService, "geocodeTtlSeconds", 86_400L);
+        ReflectionTestUtils.setField(navigationService, "geocodeMaxEntries", 100);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        openRoute.shutdown();
+    }
+
+    @Test
+    void clampsRequestedTimeLimitToTheConfiguredMaximum() {
+        for (Long requested : new Long[]{null, 500L, 60_000L}) {
+            openRoute.enqueue(new MockResponse().setResponseCode(503));
+            assertThrows(IllegalStateException.class, () -> navigationService.optimizeTrip(trip(requested)));
+        }
+        assertEquals(List.of(2000L, 500L, 2000L), solverLimits);
+    }
+
+    @Test
+    void rejectsNonPositiveTimeLimitBeforeCallingUpstream() {
+        for (long requested : new long[]{0, -1}) {
+            assertThrows(IllegalArgumentException.class, () -> navigationService.optimizeTrip(trip(requested)));
+        }
+        assertEquals(0, openRoute.getRequestCount());
+        assertEquals(List.of(), solverLimits);
+    }
+
+    @Test
+    void nearbyPlaceLookupsAreNotRecordedAsSearches() throws IOException {
+        TripHistory tripHistory = new TripHistory();
+        ReflectionTestUtils.setField(tripHistory, "maxTracked", 100);
+        ReflectionTestUtils.setField(navigationService, "tripHistory", tripHistory);
+        openRoute.enqueue(new MockResponse().setBody("{\"features\":[]}"));
+
+        navigationService.getNearbyPlaces(17.385, 78.4867, "fuel", 1000);
+        navigationService.getNearbyPlaces(17.385, 78.4867, "fuel", 1000);
+
+        assertEquals(1, openRoute.getRequestCount());
+        assertEquals(0, tripHistory.getStats().get("trackedSearches"));
+        assertEquals(0L, tripHistory.requestsLastMinute());
+    }
+
+    private static MultiStopRequest trip(Long timeLimitMs) {
+        MultiStopRequest request = new MultiStopRequest();
+        request.setOrigin(Map.of("lat", 17.385, "lng", 78.4867));
+        request.setStops(List.of(Map.of("lat", 17.44, "lng", 78.35), Map.of("lat", 17.36, "lng", 78.47)));
+        request.setTimeLimitMs(timeLimitMs);
+        return request;
+    }
+}
@@ -0,0 +1,224 @@
+package com.smartroute.service;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OllamaPoolTest {
+
+    private final List<MockWebServer> servers = new ArrayList<>();
+
+    @AfterEach
+    void stopServers() throws IOException {
+        for (MockWebServer server : servers) {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    void spreadsLoadAcrossInstancesUpToTheConcurrencyCap() throws IOException {
+        StubOllama loaded = stub(true, true);
+        StubOllama pulled = stub(true, false);
+        OllamaPool pool = pool(loaded, pulled);
+        pool.probeInstances();
+
+        List<OllamaPool.Instance> acquired = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            acquired.add(pool.acquire("llama3"));
+        }
+
+        assertEquals(2, acquired.stream().filter(instance -> instance.getBaseUrl().equals(loaded.url())).count());
+        assertEquals(2, acquired.stream().filter(instance -> instance.getBaseUrl().equals(pulled.url())).count());
+    }
+
+    @Test
+    void prefersAFastColdInstanceOverASlowLoadedOne() throws IOException {
+        StubOllama loaded = stub(true, true);
+        StubOllama pulled = stub(true, false);
+        OllamaPool pool = pool(loaded, pulled);
+        ReflectionTestUtils.setField(pool, "ejectLatencyFactor", 100.0);
+        pool.probeInstances();
+
+        OllamaPool.Instance first = pool.acquire("llama3");
+        OllamaPool.Instance second = pool.acquire("llama3");
+        OllamaPool.Instance third = pool.acquire("llama3");
+        for (OllamaPool.Instance instance : List.of(first, second, third)) {
+            pool.release(instance, millis(instance.getBaseUrl().equals(loaded.url()) ? 900 : 100), true);
+        }
+
+        // 900 ms loaded vs 100 ms x cold penalty 2: the cold instance still wins
+        assertEquals(pulled.url(), pool.acquire("llama3").getBaseUrl());
+    }
+
+    @Test
+    void waitsForAFreeSlotAndTimesOutWhenNoneFrees() throws Exception {
+        StubOllama only = stub(true, true);
+        OllamaPool pool = pool(only);
+        ReflectionTestUtils.setField(pool, "acquireTimeoutMs", 200L);
+        pool.probeInstances();
+
+        OllamaPool.Instance first = pool.acquire("llama3");
+        pool.acquire("llama3");
+        assertThrows(IOException.class, () -> pool.acquire("llama3"));
+
+        ReflectionTestUtils.setField(pool, "acquireTimeoutMs", 5000L);
+        CompletableFuture<OllamaPool.Instance> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return pool.acquire("llama3");
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(100);
+        assertFalse(waiting.isDone());
+        pool.release(first, millis(50), true);
+        assertEquals(only.url(), waiting.get(2, TimeUnit.SECONDS).getBaseUrl());
+    }
+
+    @Test
+    void ejectsAnInstanceFarSlowerThanItsPeers() throws IOException {
+        StubOllama slow = stub(true, true);
+        StubOllama fast1 = stub(true, true);
+        StubOllama fast2 = stub(true, true);
+        OllamaPool pool = pool(slow, fast1, fast2);
+        pool.probeInstances();
+
+        // One request each, so every instance has a latency sample
+        OllamaPool.Instance a = pool.acquire("llama3");
+        OllamaPool.Instance b = pool.acquire("llama3");
+        OllamaPool.Instance c = pool.acquire("llama3");
+        List<OllamaPool.Instance> slowLast = new ArrayList<>(List.of(a, b, c));
+        slowLast.sort((x, y) -> Boolean.compare(x.getBaseUrl().equals(slow.url()), y.getBaseUrl().equals(slow.url())));
+        for (OllamaPool.Instance instance : slowLast) {
+            pool.release(instance, millis(instance.getBaseUrl().equals(slow.url()) ? 2000 : 100), true);
+        }
+
+        Map<String, Object> slowHealth = instanceHealth(pool, slow);
+        assertEquals(true, slowHealth.get("ejected"));
+        assertEquals("degraded", pool.getHealth().get("status"));
+        for (int i = 0; i < 4; i++) {
+            assertNotEquals(slow.url(), pool.acquire("llama3").getBaseUrl());
+        }
+    }
+
+    @Test
+    void healthProbeMarksInstancesDownAndBackUp() throws IOException {
+        StubOllama flaky = stub(true, true);
+        StubOllama steady = stub(true, true);
+        OllamaPool pool = pool(flaky, steady);
+
+        flaky.up = false;
+        pool.probeInstances();
+        assertEquals(false, instanceHealth(pool, flaky).get("healthy"));
+        assertEquals("degraded", pool.getHealth().get("status"));
+        for (int i = 0; i < 2; i++) {
+            assertEquals(steady.url(), pool.acquire("llama3").getBaseUrl());
+        }
+
+        flaky.up = true;
+        pool.probeInstances();
+        assertEquals(true, instanceHealth(pool, flaky).get("healthy"));
+        assertEquals("healthy", pool.getHealth().get("status"));
+        assertEquals(flaky.url(), pool.acquire("llama3").getBaseUrl());
+    }
+
+    @Test
+    void repeatedFailuresTakeAnInstanceOutUntilTheNextGoodProbe() throws IOException {
+        StubOllama only = stub(true, true);
+        OllamaPool pool = pool(only);
+        pool.probeInstances();
+
+        for (int i = 0; i < 3; i++) {
+            pool.release(pool.acquire("llama3"), millis(10), false);
+        }
+        assertEquals("unavailable", pool.getHealth().get("status"));
+        assertThrows(IOException.class, () -> pool.acquire("llama3"));
+
+        pool.probeInstances();
+        assertEquals("healthy", pool.getHealth().get("status"));
+    }
+
+    static OllamaPool pool(StubOllama... stubs) {
+        List<String> urls = new ArrayList<>();
+        for (StubOllama stub : stubs) {
+            urls.add(stub.url());
+        }
+        OllamaPool pool = new OllamaPool(String.join(",", urls), 1000);
+        ReflectionTestUtils.setField(pool, "maxConcurrency", 2);
+        ReflectionTestUtils.setField(pool, "acquireTimeoutMs", 1000L);
+        ReflectionTestUtils.setField(pool, "coldPenalty", 2.0);
+        ReflectionTestUtils.setField(pool, "missingPenalty", 20.0);
+        ReflectionTestUtils.setField(pool, "ejectLatencyFactor", 3.0);
+        ReflectionTestUtils.setField(pool, "ejectCooldownMs", 30000L);
+        return pool;
+    }
+
+    StubOllama stub(boolean pulled, boolean loaded) throws IOException {
+        MockWebServer server = new MockWebServer();
+        StubOllama stub = new StubOllama(server, pulled, loaded);
+        server.setDispatcher(stub);
+        server.start();
+        servers.add(server);
+        return stub;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> instanceHealth(OllamaPool pool, StubOllama stub) {
+        return ((List<Map<String, Object>>) pool.getHealth().get("instances")).stream()
+                .filter(detail -> detail.get("url").equals(stub.url()))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static long millis(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    /**
+     * Answers /api/tags and /api/ps like an Ollama node that has pulled and/or loaded llama3.
+     */
+    static final class StubOllama extends Dispatcher {
+        private final MockWebServer server;
+        private final boolean pulled;
+        private final boolean loaded;
+        volatile boolean up = true;
+
+        StubOllama(MockWebServer server, boolean pulled, boolean loaded) {
+            this.server = server;
+            this.pulled = pulled;
+            this.loaded = loaded;
+        }
+
+        String url() {
+            return server.url("/").toString().replaceAll("/+$", "");
+        }
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            if (!up) {
+                return new MockResponse().setResponseCode(500);
+            }
+            boolean listed = "/api/ps".equals(request.getPath()) ? loaded : pulled;
+            String models = listed ? "[{\"name\":\"llama3:latest\"}]" : "[]";
+            return new MockResponse()
+                    .setHeader("Content-Type", "application/json")
+                    .setBody("{\"models\":" + models + "}");
+        }
+    }
+}
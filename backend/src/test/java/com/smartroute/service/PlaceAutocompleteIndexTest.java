@@ -0,0 +1,107 @@
+package com.smartroute.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlaceAutocompleteIndexTest {
+
+    @TempDir
+    Path gazetteerDir;
+
+    @Test
+    void fullNamesRankAboveWordMatchesAndNearerPlacesWin() throws IOException {
+        PlaceAutocompleteIndex index = load(String.join("\n",
+                place("Banjara Hills", 0.8, 17.4126, 78.4482),
+                place("Hills Colony", 0.3, 17.3500, 78.5500),
+                place("Ameerpet", 0.7, 17.4375, 78.4482),
+                place("Amberpet", 0.7, 17.3900, 78.5200)));
+
+        assertEquals(List.of("Hills Colony", "Banjara Hills"), names(index.search("hills", null, null, 5)));
+        assertEquals("Amberpet", names(index.search("am", 17.3900, 78.5200, 5)).get(0));
+        assertEquals("Ameerpet", names(index.search("am", 17.4375, 78.4482, 5)).get(0));
+    }
+
+    @Test
+    void ranksAcrossTheWholeMatchingRange() throws IOException {
+        // Thousands of minor places sort before the one that should win
+        StringBuilder gazetteer = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            gazetteer.append(place(String.format(Locale.ROOT, "Sa%04d Nagar", i), 0.0, 17.0, 78.0)).append('\n');
+        }
+        gazetteer.append(place("Secunderabad", 1.0, 17.4399, 78.4983));
+        PlaceAutocompleteIndex index = load(gazetteer.toString());
+
+        assertEquals("Secunderabad", names(index.search("s", 17.44, 78.50, 3)).get(0));
+    }
+
+    @Test
+    void matchesTeluguNamesAndAliasesOncePerPlace() throws IOException {
+        PlaceAutocompleteIndex index = load(String.join("\n",
+                "Charminar\tచార్మినార్\tcharminaar,char minar\t17.3616\t78.4747\t1.0\tCharminar, Hyderabad",
+                "Golconda Fort\tగోల్కొండ కోట\tgolkonda,golconda\t17.3833\t78.4011\t0.9\tIbrahim Bagh, Hyderabad",
+                "Kondapur\tకొండాపూర్\t\t17.4600\t78.3600\t0.5\tKondapur, Hyderabad"));
+
+        List<Map<String, Object>> telugu = index.search("చార్మి", null, null, 5);
+        assertEquals(List.of("Charminar"), names(telugu));
+        assertEquals("చార్మినార్", telugu.get(0).get("teluguName"));
+
+        // "కోట" is the second word of Golconda's Telugu name
+        assertEquals(List.of("Golconda Fort"), names(index.search("కోట", null, null, 5)));
+        assertEquals(List.of("Golconda Fort"), names(index.search("golkonda", null, null, 5)));
+        assertEquals(List.of("Golconda Fort"), names(index.search("golc", null, null, 5)));
+        assertEquals(List.of("Charminar"), names(index.search("Char-Minar", null, null, 5)));
+    }
+
+    @Test
+    void unknownAndBlankQueriesFindNothing() throws IOException {
+        PlaceAutocompleteIndex index = load(place("Charminar", 1.0, 17.3616, 78.4747));
+
+        assertEquals(List.of(), index.search("zzz", null, null, 5));
+        assertEquals(List.of(), index.search(" -- ", null, null, 5));
+        assertEquals(List.of(), index.search(null, null, null, 5));
+    }
+
+    @Test
+    void loadsTheBundledGazetteer() throws IOException {
+        PlaceAutocompleteIndex index = new PlaceAutocompleteIndex();
+        ReflectionTestUtils.setField(index, "gazetteerLocation", "classpath:gazetteer/hyderabad.tsv");
+        ReflectionTestUtils.setField(index, "resourceLoader", new DefaultResourceLoader());
+        index.load();
+
+        assertTrue(index.size() > 0);
+        assertEquals("Charminar", names(index.search("charm", null, null, 1)).get(0));
+    }
+
+    private PlaceAutocompleteIndex load(String gazetteer) throws IOException {
+        Path file = gazetteerDir.resolve("gazetteer.tsv");
+        Files.writeString(file, "# name\ttelugu\taliases\tlat\tlng\timportance\taddress\n" + gazetteer,
+                StandardCharsets.UTF_8);
+
+        PlaceAutocompleteIndex index = new PlaceAutocompleteIndex();
+        ReflectionTestUtils.setField(index, "gazetteerLocation", file.toUri().toString());
+        ReflectionTestUtils.setField(index, "resourceLoader", new DefaultResourceLoader());
+        index.load();
+        return index;
+    }
+
+    private static String place(String name, double importance, double lat, double lng) {
+        return String.format(Locale.ROOT, "%s\t\t\t%.4f\t%.4f\t%.2f\t%s, Hyderabad", name, lat, lng, importance, name);
+    }
+
+    private static List<String> names(List<Map<String, Object>> places) {
+        return places.stream().map(place -> (String) place.get("name")).toList();
+    }
+}
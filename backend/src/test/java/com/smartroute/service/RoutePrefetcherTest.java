@@ -0,0 +1,136 @@
+package com.smartroute.service;
+
+import com.smartroute.dto.RouteResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RoutePrefetcherTest {
+
+    private static final Map<String, Object> CHARMINAR = Map.of("lat", 17.3616, "lng", 78.4747);
+
+    private final List<String> warmedRoutes = new ArrayList<>();
+    private final List<String> warmedGeocodes = new ArrayList<>();
+    private TripHistory tripHistory;
+    private RouteCache routeCache;
+    private RoutePrefetcher prefetcher;
+
+    @BeforeEach
+    void setUp() {
+        tripHistory = new TripHistory();
+        ReflectionTestUtils.setField(tripHistory, "originCellDegrees", 0.01);
+        ReflectionTestUtils.setField(tripHistory, "maxTracked", 100);
+
+        routeCache = new RouteCache();
+        ReflectionTestUtils.setField(routeCache, "ttlSeconds", 300L);
+        ReflectionTestUtils.setField(routeCache, "maxEntries", 100);
+        ReflectionTestUtils.setField(routeCache, "precision", 4);
+        ReflectionTestUtils.setField(routeCache, "compressMinBytes", 1024);
+
+        // Fills the cache as the real warm-up would, without calling OpenRouteService
+        NavigationService navigationService = new NavigationService() {
+            @Override
+            public CachedRoute warmRoute(Map<String, Object> origin, Map<String, Object> destination, long ttlSeconds) {
+                String key = routeCache.key(origin, destination);
+                warmedRoutes.add(key);
+                return routeCache.put(key, new RouteResponse(Map.of("distance", 1000), null), ttlSeconds);
+            }
+
+            @Override
+            public void warmGeocode(String query) {
+                warmedGeocodes.add(query);
+            }
+
+            @Override
+            public boolean isGeocodeCached(String query, long until) {
+                return warmedGeocodes.contains(query);
+            }
+        };
+
+        prefetcher = new RoutePrefetcher();
+        ReflectionTestUtils.setField(prefetcher, "enabled", true);
+        ReflectionTestUtils.setField(prefetcher, "minCount", 2);
+        ReflectionTestUtils.setField(prefetcher, "hourlyQuota", 3);
+        ReflectionTestUtils.setField(prefetcher, "busyRequestsPerMinute", 1000L);
+        ReflectionTestUtils.setField(prefetcher, "routeTtlSeconds", 1800L);
+        ReflectionTestUtils.setField(prefetcher, "intervalMs", 300_000L);
+        ReflectionTestUtils.setField(prefetcher, "initialDelayMs", 3_600_000L);
+        ReflectionTestUtils.setField(prefetcher, "geocodeTtlSeconds", 86_400L);
+        ReflectionTestUtils.setField(prefetcher, "navigationService", navigationService);
+        ReflectionTestUtils.setField(prefetcher, "routeCache", routeCache);
+        ReflectionTestUtils.setField(prefetcher, "tripHistory", tripHistory);
+        ReflectionTestUtils.setField(prefetcher, "meterRegistry", new SimpleMeterRegistry());
+        prefetcher.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        prefetcher.stop();
+    }
+
+    @Test
+    void stopsAtTheHourlyQuotaAndSkipsEntriesStillCached() {
+        for (int trip = 0; trip < 4; trip++) {
+            recordTrip(17.40 + trip * 0.05, 2);
+        }
+        tripHistory.recordSearch("golconda");
+        tripHistory.recordSearch("golconda");
+
+        prefetcher.warmUp();
+        assertEquals(3, warmedRoutes.size());
+        assertEquals(List.of(), warmedGeocodes);
+
+        // Quota spent for this hour: nothing more, and the warmed routes are fresh anyway
+        prefetcher.warmUp();
+        assertEquals(3, warmedRoutes.size());
+        assertEquals(3L, prefetcher.getStats().get("quotaUsedThisHour"));
+
+        ReflectionTestUtils.setField(prefetcher, "hourlyQuota", 10);
+        prefetcher.warmUp();
+        assertEquals(4, warmedRoutes.size());
+        assertEquals(List.of("golconda"), warmedGeocodes);
+    }
+
+    @Test
+    void skipsRunsWhileTrafficIsBusy() {
+        recordTrip(17.40, 3);
+        ReflectionTestUtils.setField(prefetcher, "busyRequestsPerMinute", 2L);
+
+        prefetcher.warmUp();
+
+        assertEquals(List.of(), warmedRoutes);
+        assertEquals(1L, prefetcher.getStats().get("skippedBusy"));
+    }
+
+    @Test
+    void reportsHowManyWarmedRoutesWereUsed() {
+        String used = recordTrip(17.40, 2);
+        recordTrip(17.50, 2);
+
+        prefetcher.warmUp();
+        tripHistory.recordRouteHit(used);
+        tripHistory.recordRouteHit(used);
+
+        Map<String, Object> stats = prefetcher.getStats();
+        assertEquals(2L, stats.get("routesWarmed"));
+        assertEquals(1L, stats.get("routesUsed"));
+        assertEquals(0.5, stats.get("routeHitRate"));
+    }
+
+    private String recordTrip(double originLat, int times) {
+        Map<String, Object> origin = Map.of("lat", originLat, "lng", 78.35);
+        String key = routeCache.key(origin, CHARMINAR);
+        for (int i = 0; i < times; i++) {
+            tripHistory.recordTrip(key, origin, CHARMINAR);
+        }
+        return key;
+    }
+}
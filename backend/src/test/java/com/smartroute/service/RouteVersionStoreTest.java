@@ -0,0 +1,79 @@
+package com.smartroute.service;
+
+import com.smartroute.dto.RouteResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RouteVersionStoreTest {
+
+    @Test
+    void rerouteIsSentAsDeltaAgainstSharedTail() {
+        RouteVersionStore store = new RouteVersionStore(10);
+        RouteResponse original = route(List.of("Head north", "Turn left", "Arrive"), 0.0, 1.0, 2.0, 3.0);
+        store.register(original);
+
+        RouteResponse reroute = route(List.of("Make a U-turn", "Turn left", "Arrive"), 0.5, 2.0, 3.0);
+        store.register(reroute);
+        RouteResponse delta = store.diff(reroute, original.getVersion());
+
+        assertTrue(delta.isDelta());
+        assertEquals(original.getVersion(), delta.getBaseVersion());
+        assertEquals(1, delta.getSteps().size());
+        assertEquals(1, delta.getRetainedStepsFrom());
+        assertEquals(1, delta.getGeometry().size());
+        assertEquals(2, delta.getRetainedGeometryFrom());
+    }
+
+    @Test
+    void unknownOrUnrelatedBaseReturnsFullRoute() {
+        RouteVersionStore store = new RouteVersionStore(10);
+        RouteResponse original = route(List.of("Head north"), 0.0, 1.0);
+        store.register(original);
+
+        RouteResponse other = route(List.of("Head south"), 5.0, 6.0);
+        store.register(other);
+
+        assertSame(other, store.diff(other, "unknown"));
+        assertSame(other, store.diff(other, original.getVersion()));
+        assertFalse(other.isDelta());
+    }
+
+    @Test
+    void geometryIsRebuiltAndOldVersionsAreEvicted() {
+        RouteVersionStore store = new RouteVersionStore(1);
+        RouteResponse first = route(List.of("Head north"), 0.0, 1.0);
+        store.register(first);
+
+        List<Map<String, Object>> geometry = store.geometry(first.getVersion());
+        assertEquals(2, geometry.size());
+        assertEquals(1.0, geometry.get(1).get("lat"));
+        assertEquals(78.0, geometry.get(1).get("lng"));
+
+        store.register(route(List.of("Head south"), 5.0));
+        assertNull(store.geometry(first.getVersion()));
+    }
+
+    private static RouteResponse route(List<String> instructions, double... latitudes) {
+        RouteResponse route = new RouteResponse();
+        List<Map<String, Object>> steps = new ArrayList<>();
+        for (String instruction : instructions) {
+            steps.add(Map.of("instruction", instruction, "distance", "1 km", "duration", "2 min"));
+        }
+        List<Map<String, Object>> geometry = new ArrayList<>();
+        for (double lat : latitudes) {
+            geometry.add(Map.of("lat", lat, "lng", 78.0));
+        }
+        route.setSteps(steps);
+        route.setGeometry(geometry);
+        return route;
+    }
+}
@@ -0,0 +1,172 @@
+package com.smartroute.service;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RouteWeatherServiceTest {
+
+    private MockWebServer openWeather;
+    private RouteWeatherService routeWeather;
+    private final List<Double> requestedLats = new CopyOnWriteArrayList<>();
+
+    // Rain north of this latitude; forecasts there take this long to arrive
+    private volatile double rainFromLat = Double.MAX_VALUE;
+    private volatile long slowFromLatDelayMs = 0;
+    private volatile double slowFromLat = Double.MAX_VALUE;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        openWeather = new MockWebServer();
+        openWeather.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                double lat = Double.parseDouble(request.getRequestUrl().queryParameter("lat"));
+                requestedLats.add(lat);
+                MockResponse response = new MockResponse().setBody(forecast(lat));
+                if (lat >= slowFromLat) {
+                    response.setBodyDelay(slowFromLatDelayMs, TimeUnit.MILLISECONDS);
+                }
+                return response;
+            }
+        });
+        openWeather.start();
+
+        routeWeather = new RouteWeatherService(4);
+        ReflectionTestUtils.setField(routeWeather, "openWeatherApiKey", "test");
+        ReflectionTestUtils.setField(routeWeather, "openWeatherBaseUrl", openWeather.url("/data/2.5").toString());
+        ReflectionTestUtils.setField(routeWeather, "sampleSpacingKm", 10.0);
+        ReflectionTestUtils.setField(routeWeather, "maxSamples", 12);
+        ReflectionTestUtils.setField(routeWeather, "tileDegrees", 0.1);
+        ReflectionTestUtils.setField(routeWeather, "budgetMs", 2500L);
+        ReflectionTestUtils.setField(routeWeather, "averageSpeedKmh", 40.0);
+        ReflectionTestUtils.setField(routeWeather, "cacheTtlSeconds", 600L);
+        ReflectionTestUtils.setField(routeWeather, "cacheMaxEntries", 2000);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        routeWeather.stop();
+        openWeather.shutdown();
+    }
+
+    @Test
+    void samplesAreSpacedAlongTheRouteUpToTheLimit() {
+        // About 55 km due north
+        String summary = routeWeather.summarizeAlongRoute(northbound(17.0, 17.5, 0.01), null);
+
+        assertTrue(summary.startsWith("No rain expected along your route"), summary);
+        assertEquals(17.0, requestedLats.stream().mapToDouble(Double::doubleValue).min().orElseThrow(), 1e-6);
+        assertEquals(17.5, requestedLats.stream().mapToDouble(Double::doubleValue).max().orElseThrow(), 1e-6);
+        assertTrue(requestedLats.size() >= 5 && requestedLats.size() <= 7, requestedLats.toString());
+
+        ReflectionTestUtils.setField(routeWeather, "maxSamples", 3);
+        ((Map<?, ?>) ReflectionTestUtils.getField(routeWeather, "forecastCache")).clear();
+        requestedLats.clear();
+        routeWeather.summarizeAlongRoute(northbound(17.0, 17.5, 0.01), null);
+        assertEquals(3, requestedLats.size());
+    }
+
+    @Test
+    void pointsInOneTileAreFetchedOnceAndThenServedFromCache() {
+        ReflectionTestUtils.setField(routeWeather, "sampleSpacingKm", 1.0);
+        // Nine kilometres that all fall into the same 0.1° tile
+        List<Map<String, Object>> route = northbound(17.01, 17.09, 0.005);
+
+        routeWeather.summarizeAlongRoute(route, null);
+        assertEquals(1, requestedLats.size());
+
+        routeWeather.summarizeAlongRoute(route, null);
+        assertEquals(1, requestedLats.size());
+    }
+
+    @Test
+    void onlyTheRouteAheadOfTheDriverIsSampled() {
+        routeWeather.summarizeAlongRoute(northbound(17.0, 17.5, 0.01), Map.of("lat", 17.301, "lng", 78.45));
+
+        assertTrue(requestedLats.stream().allMatch(lat -> lat >= 17.3 - 1e-6), requestedLats.toString());
+    }
+
+    @Test
+    void reportsTheFirstRainAheadWithItsDistance() {
+        rainFromLat = 17.25;
+
+        String summary = routeWeather.summarizeAlongRoute(northbound(17.0, 17.5, 0.01), null);
+
+        assertTrue(summary.matches("Expect light rain about \\d+ km ahead near Lat17\\.\\d+\\. .*"), summary);
+        int km = Integer.parseInt(summary.replaceAll("\\D*(\\d+) km.*", "$1"));
+        assertTrue(km >= 25 && km <= 40, summary);
+    }
+
+    @Test
+    void slowForecastsAreSkippedOnceTheBudgetRunsOut() {
+        ReflectionTestUtils.setField(routeWeather, "budgetMs", 400L);
+        slowFromLat = 17.25;
+        slowFromLatDelayMs = 3000;
+
+        long started = System.nanoTime();
+        String summary = routeWeather.summarizeAlongRoute(northbound(17.0, 17.5, 0.01), null);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        assertTrue(elapsedMs < 1500, "took " + elapsedMs + " ms");
+        assertTrue(summary.matches(".*\\(Checked \\d+ of \\d+ points on the route\\.\\)"), summary);
+    }
+
+    @Test
+    void forecastCacheStaysWithinItsCap() {
+        ReflectionTestUtils.setField(routeWeather, "cacheMaxEntries", 2);
+
+        routeWeather.summarizeAlongRoute(northbound(17.0, 17.5, 0.01), null);
+        int fetched = requestedLats.size();
+        routeWeather.summarizeAlongRoute(northbound(17.0, 17.5, 0.01), null);
+
+        Map<?, ?> cache = (Map<?, ?>) ReflectionTestUtils.getField(routeWeather, "forecastCache");
+        assertEquals(2, cache.size());
+        // Only the cached tiles are spared the second time round
+        assertEquals(2 * fetched - 2, requestedLats.size());
+        Set<Double> distinct = new HashSet<>(requestedLats.subList(0, fetched));
+        assertEquals(fetched, distinct.size());
+    }
+
+    private static List<Map<String, Object>> northbound(double fromLat, double toLat, double step) {
+        List<Map<String, Object>> route = new ArrayList<>();
+        int points = (int) Math.round((toLat - fromLat) / step);
+        for (int i = 0; i <= points; i++) {
+            route.add(Map.of("lat", fromLat + i * step, "lng", 78.45));
+        }
+        return route;
+    }
+
+    private String forecast(double lat) {
+        boolean wet = lat >= rainFromLat;
+        long now = System.currentTimeMillis() / 1000;
+        StringBuilder slots = new StringBuilder();
+        for (int i = 0; i < 8; i++) {
+            if (i > 0) {
+                slots.append(',');
+            }
+            slots.append(String.format(Locale.ROOT,
+                    "{\"dt\":%d,\"main\":{\"temp\":%.1f},\"weather\":[{\"id\":%d,\"description\":\"%s\"}]}",
+                    now + i * 3 * 3600, 24 + lat - 17, wet ? 500 : 800, wet ? "light rain" : "clear sky"));
+        }
+        return String.format(Locale.ROOT, "{\"city\":{\"name\":\"Lat%.2f\"},\"list\":[%s]}", lat, slots);
+    }
+}
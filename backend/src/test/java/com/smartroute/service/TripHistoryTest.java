@@ -0,0 +1,92 @@
+package com.smartroute.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TripHistoryTest {
+
+    private static final Map<String, Object> CHARMINAR = Map.of("lat", 17.3616, "lng", 78.4747);
+
+    private TripHistory tripHistory;
+
+    @BeforeEach
+    void setUp() {
+        tripHistory = new TripHistory();
+        ReflectionTestUtils.setField(tripHistory, "originCellDegrees", 0.01);
+        ReflectionTestUtils.setField(tripHistory, "maxTracked", 3);
+    }
+
+    @Test
+    void recurringTripsWarmTheirMostFrequentExactKey() {
+        for (int i = 0; i < 3; i++) {
+            tripHistory.recordTrip("17.4401,78.3489|17.3616,78.4747", Map.of("lat", 17.4401, "lng", 78.3489), CHARMINAR);
+        }
+        // Same origin cell, slightly different start point
+        tripHistory.recordTrip("17.4403,78.3486|17.3616,78.4747", Map.of("lat", 17.4403, "lng", 78.3486), CHARMINAR);
+        tripHistory.recordTrip("17.5000,78.5000|17.3616,78.4747", Map.of("lat", 17.5, "lng", 78.5), CHARMINAR);
+
+        List<TripHistory.Trip> upcoming = tripHistory.upcomingTrips(3);
+
+        assertEquals(1, upcoming.size());
+        assertEquals("17.4401,78.3489|17.3616,78.4747", upcoming.get(0).cacheKey());
+        assertEquals(4, upcoming.get(0).count());
+        assertEquals(2, tripHistory.upcomingTrips(1).size());
+    }
+
+    @Test
+    void searchesNeedTheMinimumCountAndStopBeingTrackedAtTheCap() {
+        for (int i = 0; i < 3; i++) {
+            tripHistory.recordSearch("charminar");
+        }
+        tripHistory.recordSearch("golconda");
+        tripHistory.recordSearch("hitech city");
+        tripHistory.recordSearch("birla mandir");
+
+        assertEquals(List.of("charminar"), tripHistory.upcomingSearches(2));
+        assertEquals(3, tripHistory.getStats().get("trackedSearches"));
+        assertEquals(6, tripHistory.requestsLastMinute());
+    }
+
+    @Test
+    void onlyTheFirstRequestForAWarmedEntryCountsAsAHit() {
+        tripHistory.markRouteWarmed("a|b");
+        tripHistory.markRouteWarmed("c|d");
+        tripHistory.markGeocodeWarmed("charminar");
+
+        tripHistory.recordRouteHit("a|b");
+        tripHistory.recordRouteHit("a|b");
+        tripHistory.recordRouteHit("never|warmed");
+        tripHistory.recordGeocodeHit("golconda");
+
+        Map<String, Object> stats = tripHistory.getStats();
+        assertEquals(2L, stats.get("routesWarmed"));
+        assertEquals(1L, stats.get("routesUsed"));
+        assertEquals(0.5, stats.get("routeHitRate"));
+        assertEquals(1L, stats.get("geocodesWarmed"));
+        assertEquals(0L, stats.get("geocodesUsed"));
+        assertEquals(0.0, stats.get("geocodeHitRate"));
+    }
+
+    @Test
+    void entriesThatExpiredUnusedNoLongerCountWhenHit() throws InterruptedException {
+        tripHistory.markRouteWarmed("a|b");
+        tripHistory.markGeocodeWarmed("charminar");
+        Thread.sleep(5);
+
+        tripHistory.expireWarm(1, 60_000);
+        tripHistory.recordRouteHit("a|b");
+        tripHistory.recordGeocodeHit("charminar");
+
+        Map<String, Object> stats = tripHistory.getStats();
+        assertEquals(0L, stats.get("routesUsed"));
+        assertEquals(1L, stats.get("geocodesUsed"));
+        assertTrue((double) stats.get("geocodeHitRate") > 0.99);
+    }
+}
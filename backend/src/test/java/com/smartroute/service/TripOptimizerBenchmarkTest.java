@@ -0,0 +1,50 @@
+package com.smartroute.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Solution quality and solve time on seeded random 10, 25 and 50 stop instances, against plain
+ * nearest neighbour and, where it is still tractable, the Held-Karp optimum. Run with
+ * {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class TripOptimizerBenchmarkTest {
+
+    private static final int INSTANCES = 20;
+    private static final long TIME_LIMIT_MS = 2000;
+
+    @Test
+    void stopsBenchmark() {
+        TripOptimizer optimizer = TripOptimizerTest.optimizer();
+        try {
+            // Warm up the JIT before timing anything
+            for (long seed = 0; seed < 5; seed++) {
+                optimizer.solve(TripOptimizerTest.randomInstance(51, -seed - 1), false, false, TIME_LIMIT_MS);
+            }
+
+            System.out.printf("%6s %12s %14s %12s %10s%n", "stops", "vs NN", "vs Held-Karp", "mean ms", "max ms");
+            for (int stops : new int[]{10, 25, 50}) {
+                double improvement = 0;
+                double gap = 0;
+                long totalMs = 0;
+                long maxMs = 0;
+                for (long seed = 1; seed <= INSTANCES; seed++) {
+                    double[][] durations = TripOptimizerTest.randomInstance(stops + 1, seed);
+                    TripOptimizer.Result result = optimizer.solve(durations, false, false, TIME_LIMIT_MS);
+                    improvement += 1 - result.cost() / result.nearestNeighbourCost();
+                    totalMs += result.solveMs();
+                    maxMs = Math.max(maxMs, result.solveMs());
+                    if (stops <= 15) {
+                        gap += result.cost() / TripOptimizerTest.heldKarp(durations, false) - 1;
+                    }
+                }
+                System.out.printf("%6d %11.1f%% %14s %12.1f %10d%n", stops, 100 * improvement / INSTANCES,
+                        stops <= 15 ? String.format("+%.2f%%", 100 * gap / INSTANCES) : "n/a",
+                        totalMs / (double) INSTANCES, maxMs);
+            }
+        } finally {
+            optimizer.stop();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.smartroute.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TripOptimizerTest {
+
+    private final TripOptimizer optimizer = optimizer();
+
+    @AfterEach
+    void stop() {
+        optimizer.stop();
+    }
+
+    @Test
+    void staysCloseToHeldKarpOnSmallInstances() {
+        double totalGap = 0;
+        for (long seed = 1; seed <= 20; seed++) {
+            for (boolean roundTrip : new boolean[]{false, true}) {
+                double[][] durations = randomInstance(9, seed);
+                double gap = optimizer.solve(durations, false, roundTrip, 2000).cost() / heldKarp(durations, roundTrip) - 1;
+                // Local search can settle in a local optimum, but never a bad one
+                assertTrue(gap < 0.05, "seed " + seed + (roundTrip ? " round trip" : "") + " is " + gap + " off the optimum");
+                totalGap += gap;
+            }
+        }
+        assertTrue(totalGap / 40 < 0.005, "mean gap " + totalGap / 40);
+    }
+
+    @Test
+    void keepsStartAndFixedEndInPlace() {
+        double[][] durations = randomInstance(12, 7);
+        int[] order = optimizer.solve(durations, true, false, 2000).order();
+
+        assertEquals(0, order[0]);
+        assertEquals(11, order[11]);
+        assertArrayEquals(IntStream.range(0, 12).toArray(), Arrays.stream(order).sorted().toArray());
+    }
+
+    static TripOptimizer optimizer() {
+        TripOptimizer optimizer = new TripOptimizer(0);
+        ReflectionTestUtils.setField(optimizer, "maxStarts", 64);
+        return optimizer;
+    }
+
+    /**
+     * Road-like asymmetric durations in seconds: straight-line distance between random points in
+     * a 20 km square at 30 km/h, stretched by a per-direction detour factor of 1.2 to 1.6.
+     */
+    static double[][] randomInstance(int nodes, long seed) {
+        Random random = new Random(seed);
+        double[][] points = new double[nodes][2];
+        for (double[] point : points) {
+            point[0] = random.nextDouble() * 20;
+            point[1] = random.nextDouble() * 20;
+        }
+        double[][] durations = new double[nodes][nodes];
+        for (int i = 0; i < nodes; i++) {
+            for (int j = 0; j < nodes; j++) {
+                if (i != j) {
+                    double km = Math.hypot(points[i][0] - points[j][0], points[i][1] - points[j][1]);
+                    durations[i][j] = km * (1.2 + 0.4 * random.nextDouble()) / 30 * 3600;
+                }
+            }
+        }
+        return durations;
+    }
+
+    /**
+     * Exact optimum for a path from node 0 through all other nodes (back to 0 for a round trip),
+     * by dynamic programming over subsets. Feasible up to about 16 nodes.
+     */
+    static double heldKarp(double[][] d, boolean roundTrip) {
+        int n = d.length;
+        int others = n - 1;
+        double[][] best = new double[1 << others][others];
+        for (double[] row : best) {
+            Arrays.fill(row, Double.MAX_VALUE);
+        }
+        for (int j = 0; j < others; j++) {
+            best[1 << j][j] = d[0][j + 1];
+        }
+        for (int mask = 1; mask < 1 << others; mask++) {
+            for (int last = 0; last < others; last++) {
+                if ((mask & 1 << last) == 0 || best[mask][last] == Double.MAX_VALUE) {
+                    continue;
+                }
+                for (int next = 0; next < others; next++) {
+                    if ((mask & 1 << next) == 0) {
+                        int extended = mask | 1 << next;
+                        best[extended][next] = Math.min(best[extended][next], best[mask][last] + d[last + 1][next + 1]);
+                    }
+                }
+            }
+        }
+        double optimum = Double.MAX_VALUE;
+        for (int last = 0; last < others; last++) {
+            double closing = roundTrip ? d[last + 1][0] : 0;
+            optimum = Math.min(optimum, best[(1 << others) - 1][last] + closing);
+        }
+        return optimum;
+    }
+}
@@ -0,0 +1,166 @@
+package com.smartroute.service;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TtsServiceTest {
+
+    private static final byte[] AUDIO = new byte[1000];
+
+    @TempDir
+    Path cacheDir;
+
+    private MockWebServer tts;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        tts = new MockWebServer();
+        tts.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        tts.shutdown();
+    }
+
+    @Test
+    void missFetchesOnceAndLaterCallsHitTheCache() throws Exception {
+        tts.setDispatcher(audio(null));
+        TtsService service = service(tts, cacheDir, 1_000_000);
+
+        Path first = service.synthesize("Turn left", "en-US");
+        Path second = service.synthesize("Turn left", "en-US");
+
+        assertEquals(first, second);
+        assertArrayEquals(AUDIO, Files.readAllBytes(first));
+        assertEquals(1, tts.getRequestCount());
+        RecordedRequest request = tts.takeRequest();
+        assertEquals("Turn left", request.getRequestUrl().queryParameter("text"));
+        assertEquals("en", request.getRequestUrl().queryParameter("language_id"));
+    }
+
+    @Test
+    void concurrentMissesShareOneUpstreamCall() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        tts.setDispatcher(audio(release));
+        TtsService service = service(tts, cacheDir, 1_000_000);
+
+        List<CompletableFuture<Path>> callers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            callers.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return service.synthesize("Recalculating route", "en-US");
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }));
+        }
+        // Hold the only upstream response until every caller has had time to pile up behind it
+        Thread.sleep(200);
+        release.countDown();
+
+        for (CompletableFuture<Path> caller : callers) {
+            assertTrue(Files.exists(caller.get(5, TimeUnit.SECONDS)));
+        }
+        assertEquals(1, tts.getRequestCount());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedAudioBeyondTheSizeLimit() throws IOException {
+        tts.setDispatcher(audio(null));
+        TtsService service = service(tts, cacheDir, 2 * AUDIO.length);
+
+        Path first = service.synthesize("one", "en-US");
+        Path second = service.synthesize("two", "en-US");
+        service.synthesize("one", "en-US");
+        service.synthesize("three", "en-US");
+
+        assertTrue(Files.exists(first));
+        assertFalse(Files.exists(second));
+        assertEquals(3, tts.getRequestCount());
+    }
+
+    @Test
+    void openAudioStaysReadableAfterItsEntryIsEvicted() throws IOException {
+        tts.setDispatcher(audio(null));
+        TtsService service = service(tts, cacheDir, AUDIO.length);
+
+        try (FileChannel channel = service.openAudio("one", "en-US")) {
+            Path first = service.synthesize("one", "en-US");
+            service.synthesize("two", "en-US");
+            assertFalse(Files.exists(first));
+
+            ByteBuffer read = ByteBuffer.allocate(AUDIO.length);
+            assertEquals(AUDIO.length, channel.read(read, 0));
+            assertArrayEquals(AUDIO, read.array());
+        }
+    }
+
+    @Test
+    void existingCacheFilesCountTowardsTheLimitAfterRestart() throws IOException {
+        tts.setDispatcher(audio(null));
+        Path old = service(tts, cacheDir, 2 * AUDIO.length).synthesize("one", "en-US");
+
+        TtsService restarted = service(tts, cacheDir, AUDIO.length);
+        restarted.synthesize("two", "en-US");
+
+        assertFalse(Files.exists(old));
+        assertEquals(2, tts.getRequestCount());
+    }
+
+    @Test
+    void rejectsTextOverTheLimitWithoutCallingUpstream() throws IOException {
+        TtsService service = service(tts, cacheDir, 1_000_000);
+
+        assertThrows(IllegalArgumentException.class, () -> service.synthesize("x".repeat(501), "en-US"));
+        assertEquals(0, tts.getRequestCount());
+    }
+
+    static TtsService service(MockWebServer tts, Path cacheDir, long cacheMaxBytes) throws IOException {
+        TtsService service = new TtsService();
+        ReflectionTestUtils.setField(service, "ttsBaseUrl", tts.url("").toString().replaceAll("/$", ""));
+        ReflectionTestUtils.setField(service, "speakerId", "");
+        ReflectionTestUtils.setField(service, "cacheDir", cacheDir.toString());
+        ReflectionTestUtils.setField(service, "maxTextLength", 500);
+        ReflectionTestUtils.setField(service, "cacheMaxBytes", cacheMaxBytes);
+        service.loadCache();
+        return service;
+    }
+
+    // Stub TTS server answering every request with the same audio, optionally held until released
+    static Dispatcher audio(CountDownLatch release) {
+        return new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                if (release != null) {
+                    release.await(5, TimeUnit.SECONDS);
+                }
+                return new MockResponse().setBody(new okio.Buffer().write(AUDIO));
+            }
+        };
+    }
+}
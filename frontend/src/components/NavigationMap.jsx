@@ -20,6 +20,9 @@ const NavigationMap = () => {
   const [distance, setDistance] = useState(null)
   const [routeCoordinates, setRouteCoordinates] = useState([])
   const [destinationCoords, setDestinationCoords] = useState(null)
+  const [suggestions, setSuggestions] = useState([])
+  // Name last picked from the suggestions, so filling it into the input does not search again
+  const selectedName = useRef(null)
 
   useEffect(() => {
     // Get current location
@@ -39,22 +42,61 @@ const NavigationMap = () => {
     }
   }, [])
 
+  // Local place-name index on the backend; it falls back to geocoding when nothing matches
+  const fetchPlaces = async (query, limit = 5, submitted = false) => {
+    const params = new URLSearchParams({
+      query,
+      lat: currentLocation[0],
+      lng: currentLocation[1],
+      limit,
+      submitted
+    })
+    const response = await fetch(`/api/navigation/autocomplete?${params}`)
+    if (!response.ok) return []
+    const data = await response.json()
+    return data.places || []
+  }
+
+  // Type-ahead suggestions while the destination is being typed
+  useEffect(() => {
+    const query = destination.trim()
+    if (!query || destination === selectedName.current) {
+      setSuggestions([])
+      return
+    }
+
+    let cancelled = false
+    const timer = setTimeout(async () => {
+      try {
+        const places = await fetchPlaces(query)
+        if (!cancelled && selectedName.current !== destination) {
+          setSuggestions(places)
+        }
+      } catch (error) {
+        console.error('Error fetching suggestions:', error)
+      }
+    }, 150)
+    return () => {
+      cancelled = true
+      clearTimeout(timer)
+    }
+  }, [destination])
+
+  const selectPlace = async (place) => {
+    selectedName.current = place.name
+    setDestination(place.name)
+    setSuggestions([])
+    setDestinationCoords([place.lat, place.lng])
+    await getRoute(currentLocation, [place.lat, place.lng])
+  }
+
   const searchDestination = async () => {
     if (!destination.trim()) return
 
     try {
-      // Use OpenRouteService for geocoding
-      const response = await fetch(`/api/navigation/geocode?query=${encodeURIComponent(destination)}`)
-      
-      if (response.ok) {
-        const data = await response.json()
-        if (data.features && data.features.length > 0) {
-          const coords = data.features[0].geometry.coordinates
-          setDestinationCoords([coords[1], coords[0]]) // Leaflet uses [lat, lng]
-          
-          // Get route to destination
-          await getRoute(currentLocation, [coords[1], coords[0]])
-        }
+      const places = await fetchPlaces(destination.trim(), 1, true)
+      if (places.length > 0) {
+        await selectPlace(places[0])
       }
     } catch (error) {
       console.error('Error searching destination:', error)
@@ -81,8 +123,8 @@ const NavigationMap = () => {
         setDistance(routeData.distance)
         
         // Extract route coordinates for display
-        if (routeData.coordinates) {
-          setRouteCoordinates(routeData.coordinates)
+        if (routeData.geometry) {
+          setRouteCoordinates(routeData.geometry.map(point => [point.lat, point.lng]))
         }
       }
     } catch (error) {
@@ -130,6 +172,23 @@ const NavigationMap = () => {
             >
               <MapPin className="w-5 h-5" />
             </button>
+            {suggestions.length > 0 && (
+              <ul className="absolute z-[1000] mt-1 w-full bg-gray-800 border border-white/20 rounded-lg overflow-hidden">
+                {suggestions.map((place) => (
+                  <li
+                    key={`${place.name}-${place.lat}-${place.lng}`}
+                    onClick={() => selectPlace(place)}
+                    className="px-4 py-2 text-white hover:bg-white/10 cursor-pointer"
+                  >
+                    <span>{place.name}</span>
+                    {place.teluguName && <span className="ml-2 text-gray-400">{place.teluguName}</span>}
+                    {place.distanceKm !== undefined && (
+                      <span className="float-right text-gray-400 text-sm">{place.distanceKm} km</span>
+                    )}
+                  </li>
+                ))}
+              </ul>
+            )}
           </div>
         </div>
 
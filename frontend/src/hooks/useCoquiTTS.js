@@ -1,11 +1,16 @@
 import { useState, useEffect, useRef } from 'react'
 
+// How long to use browser speech before trying the server again after it failed
+const SERVER_RETRY_MS = 30000
+
 const useCoquiTTS = (language = 'en-US', tone = 'friendly') => {
   const [isSpeaking, setIsSpeaking] = useState(false)
   const [error, setError] = useState(null)
   const [isModelLoaded, setIsModelLoaded] = useState(false)
   const [availableVoices, setAvailableVoices] = useState([])
   const [selectedVoice, setSelectedVoice] = useState(null)
+  const audioRef = useRef(null)
+  const serverRetryAtRef = useRef(0)
 
   useEffect(() => {
     // Check if browser supports speech synthesis
@@ -47,13 +52,68 @@ const useCoquiTTS = (language = 'en-US', tone = 'friendly') => {
 
     // Cleanup
     return () => {
+      if (audioRef.current) {
+        audioRef.current.pause()
+      }
       if (window.speechSynthesis) {
         window.speechSynthesis.cancel()
       }
     }
   }, [language])
 
+  // Play pre-synthesized audio from the backend TTS cache
+  const speakFromServer = (text, options = {}) => {
+    return new Promise((resolve, reject) => {
+      const lang = options.lang || language
+      const audio = new Audio(`/api/tts/speak?text=${encodeURIComponent(text)}&language=${encodeURIComponent(lang)}`)
+      audio.playbackRate = (options.rate || 1.0) * getToneModifications(tone).rate
+      audio.volume = options.volume || 1.0
+      audioRef.current = audio
+
+      audio.onplay = () => {
+        setIsSpeaking(true)
+        setError(null)
+      }
+      audio.onended = () => {
+        setIsSpeaking(false)
+        resolve()
+      }
+      // Stopped by stopSpeaking or replaced by the next speak; that is not a failure
+      audio.onpause = () => {
+        setIsSpeaking(false)
+        resolve()
+      }
+      audio.onerror = () => {
+        setIsSpeaking(false)
+        reject(new Error('Server TTS unavailable'))
+      }
+      audio.play().catch((error) => {
+        if (error.name === 'AbortError') {
+          resolve()
+        } else {
+          reject(error)
+        }
+      })
+    })
+  }
+
   const speak = async (text, options = {}) => {
+    if (Date.now() >= serverRetryAtRef.current) {
+      try {
+        if (audioRef.current) {
+          audioRef.current.pause()
+        }
+        await speakFromServer(text, options)
+        return
+      } catch (error) {
+        // This phrase falls back to browser speech. A blocked autoplay says nothing about the
+        // server; any other failure leaves the server alone for a while before trying it again
+        if (error.name !== 'NotAllowedError') {
+          serverRetryAtRef.current = Date.now() + SERVER_RETRY_MS
+        }
+      }
+    }
+
     if (!isModelLoaded) {
       setError('Speech synthesis not available')
       return
@@ -114,6 +174,10 @@ const useCoquiTTS = (language = 'en-US', tone = 'friendly') => {
   }
 
   const stopSpeaking = () => {
+    if (audioRef.current) {
+      audioRef.current.pause()
+      setIsSpeaking(false)
+    }
     if (window.speechSynthesis) {
       window.speechSynthesis.cancel()
       setIsSpeaking(false)